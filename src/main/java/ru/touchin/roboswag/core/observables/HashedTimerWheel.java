@@ -0,0 +1,261 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import rx.plugins.RxJavaHooks;
+
+/**
+ * Hashed timer wheel to execute a lot of delayed tasks which are often cancelled or rescheduled (e.g. expiration of caches).
+ * Tasks are placed into buckets of wheel by their deadline so scheduling and cancelling are O(1) operations.
+ * Wheel is ticking on one thread which is expiring all tasks of bucket at once and passing them to small pool of threads
+ * so long task is not delaying other tasks. Task is never executed earlier than delay and precision of timer is duration of tick.
+ * Task could be executed after it's timeout have been rescheduled or cancelled if it have been expired just before that
+ * so task should check itself if it is still actual.
+ * Ticking thread is started on first scheduling and it is waiting without ticking while there are no scheduled tasks.
+ */
+public class HashedTimerWheel {
+
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 30;
+
+    @NonNull
+    private final String name;
+    private final long tickDurationNanos;
+    @NonNull
+    private final ThreadPoolExecutor tasksExecutor;
+    // each bucket is head of doubly-linked list of timeouts; guarded by lock
+    @NonNull
+    private final Timeout[] buckets;
+    @NonNull
+    private final Object lock = new Object();
+    private final long startNanos = System.nanoTime();
+    // guarded by lock
+    private long lastProcessedTick;
+    private int scheduledTimeoutsCount;
+    @Nullable
+    private Thread tickingThread;
+
+    /**
+     * Creates timer wheel.
+     *
+     * @param name              Name of wheel to name threads;
+     * @param tickDuration      Duration of tick;
+     * @param timeUnit          Units of tick duration;
+     * @param bucketsCount      Count of buckets. Tasks with delay longer than duration of all buckets are checking on each turn of wheel;
+     * @param tasksThreadsCount Maximum count of threads to execute expired tasks.
+     */
+    public HashedTimerWheel(@NonNull final String name, final long tickDuration, @NonNull final TimeUnit timeUnit,
+                            final int bucketsCount, final int tasksThreadsCount) {
+        this.name = name;
+        this.tickDurationNanos = Math.max(1, timeUnit.toNanos(tickDuration));
+        this.buckets = new Timeout[bucketsCount];
+        final AtomicInteger threadNumber = new AtomicInteger();
+        tasksExecutor = new ThreadPoolExecutor(tasksThreadsCount, tasksThreadsCount, THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    final Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        tasksExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Creates timeout which is not scheduled yet. Same timeout could be scheduled many times.
+     *
+     * @param task Task to execute when timeout is expired;
+     * @return New timeout.
+     */
+    @NonNull
+    public Timeout newTimeout(@NonNull final Runnable task) {
+        return new Timeout(task);
+    }
+
+    /**
+     * Returns count of scheduled and not expired timeouts.
+     *
+     * @return Count of timeouts.
+     */
+    public int getScheduledTimeoutsCount() {
+        synchronized (lock) {
+            return scheduledTimeoutsCount;
+        }
+    }
+
+    private long getCurrentTick() {
+        return (System.nanoTime() - startNanos) / tickDurationNanos;
+    }
+
+    private void tick() {
+        final List<Timeout> expiredTimeouts = new ArrayList<>();
+        while (true) {
+            final long currentTick;
+            synchronized (lock) {
+                while (scheduledTimeoutsCount == 0) {
+                    try {
+                        lock.wait();
+                    } catch (final InterruptedException exception) {
+                        tickingThread = null;
+                        return;
+                    }
+                }
+                currentTick = getCurrentTick();
+                // if ticks are missed then each bucket should be checked only once
+                for (long tick = Math.max(lastProcessedTick + 1, currentTick - buckets.length + 1); tick <= currentTick; tick++) {
+                    expireBucket((int) (tick % buckets.length), currentTick, expiredTimeouts);
+                }
+                lastProcessedTick = currentTick;
+            }
+            for (final Timeout timeout : expiredTimeouts) {
+                tasksExecutor.execute(timeout::run);
+            }
+            expiredTimeouts.clear();
+            final long nextTickNanos = startNanos + (currentTick + 1) * tickDurationNanos - System.nanoTime();
+            if (nextTickNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(nextTickNanos);
+                } catch (final InterruptedException exception) {
+                    synchronized (lock) {
+                        tickingThread = null;
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    private void expireBucket(final int bucketIndex, final long currentTick, @NonNull final List<Timeout> expiredTimeouts) {
+        Timeout timeout = buckets[bucketIndex];
+        while (timeout != null) {
+            final Timeout next = timeout.next;
+            if (timeout.deadlineTick <= currentTick) {
+                timeout.unlink();
+                expiredTimeouts.add(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * Timeout of wheel which is executing task after delay.
+     */
+    public class Timeout {
+
+        @NonNull
+        private final Runnable task;
+        // fields below are guarded by lock of wheel
+        private long deadlineTick;
+        private int bucketIndex = -1;
+        @Nullable
+        private Timeout previous;
+        @Nullable
+        private Timeout next;
+
+        private Timeout(@NonNull final Runnable task) {
+            this.task = task;
+        }
+
+        private void run() {
+            try {
+                task.run();
+            } catch (final RuntimeException exception) {
+                RxJavaHooks.onError(exception);
+            }
+        }
+
+        /**
+         * Schedules execution of task after delay. If timeout is already scheduled then it is rescheduled.
+         *
+         * @param delay    Delay of execution;
+         * @param timeUnit Units of delay.
+         */
+        public void schedule(final long delay, @NonNull final TimeUnit timeUnit) {
+            synchronized (lock) {
+                unlink();
+                // limiting delay to not overflow; rounding up so task won't be executed earlier than delay
+                final long deadlineNanos = System.nanoTime() - startNanos + Math.min(Math.max(0, timeUnit.toNanos(delay)), Long.MAX_VALUE / 2);
+                deadlineTick = Math.max(lastProcessedTick + 1, (deadlineNanos + tickDurationNanos - 1) / tickDurationNanos);
+                bucketIndex = (int) (deadlineTick % buckets.length);
+                next = buckets[bucketIndex];
+                if (next != null) {
+                    next.previous = this;
+                }
+                buckets[bucketIndex] = this;
+                scheduledTimeoutsCount++;
+                if (tickingThread == null) {
+                    tickingThread = new Thread(HashedTimerWheel.this::tick, name);
+                    tickingThread.setDaemon(true);
+                    tickingThread.start();
+                } else if (scheduledTimeoutsCount == 1) {
+                    lock.notifyAll();
+                }
+            }
+        }
+
+        /**
+         * Cancels execution of task. Does nothing if timeout is not scheduled.
+         */
+        public void cancel() {
+            synchronized (lock) {
+                unlink();
+            }
+        }
+
+        /**
+         * Returns if timeout is scheduled and not expired yet.
+         *
+         * @return True if timeout is scheduled.
+         */
+        public boolean isScheduled() {
+            synchronized (lock) {
+                return bucketIndex >= 0;
+            }
+        }
+
+        private void unlink() {
+            if (bucketIndex < 0) {
+                return;
+            }
+            if (previous != null) {
+                previous.next = next;
+            } else {
+                buckets[bucketIndex] = next;
+            }
+            if (next != null) {
+                next.previous = previous;
+            }
+            previous = null;
+            next = null;
+            bucketIndex = -1;
+            scheduledTimeoutsCount--;
+        }
+
+    }
+
+}
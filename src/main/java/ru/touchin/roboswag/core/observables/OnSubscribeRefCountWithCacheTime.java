@@ -25,12 +25,10 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
 import rx.Observable.OnSubscribe;
-import rx.Scheduler;
 import rx.Subscriber;
 import rx.Subscription;
 import rx.functions.Action1;
 import rx.observables.ConnectableObservable;
-import rx.schedulers.Schedulers;
 import rx.subscriptions.CompositeSubscription;
 import rx.subscriptions.Subscriptions;
 
@@ -38,6 +36,7 @@ import rx.subscriptions.Subscriptions;
  * Returns an observable sequence that stays connected to the source as long as
  * there is at least one subscription to the observable sequence and also it stays connected
  * for cache time after everyone unsubscribe.
+ * Expirations of cache time of all instances are scheduled on one shared {@link HashedTimerWheel}.
  *
  * @param <T> the value type
  */
@@ -45,6 +44,15 @@ import rx.subscriptions.Subscriptions;
 //AvoidUsingVolatile,CompareObjectsWithEquals: from OnSubscribeRefCount code
 public final class OnSubscribeRefCountWithCacheTime<T> implements OnSubscribe<T> {
 
+    private static final long CACHE_TIME_TICK_MILLIS = 50;
+    private static final int CACHE_TIME_WHEEL_BUCKETS_COUNT = 512;
+    private static final int CACHE_TIME_WHEEL_THREADS_COUNT = 4;
+
+    @NonNull
+    private static final HashedTimerWheel CACHE_TIME_WHEEL
+            = new HashedTimerWheel("CacheTime", CACHE_TIME_TICK_MILLIS, TimeUnit.MILLISECONDS,
+            CACHE_TIME_WHEEL_BUCKETS_COUNT, CACHE_TIME_WHEEL_THREADS_COUNT);
+
     @NonNull
     private final ConnectableObservable<? extends T> source;
     @NonNull
@@ -52,13 +60,14 @@ public final class OnSubscribeRefCountWithCacheTime<T> implements OnSubscribe<T>
     @NonNull
     private final AtomicInteger subscriptionCount = new AtomicInteger(0);
 
-    @NonNull
-    private final Scheduler scheduler = Schedulers.computation();
     private final long cacheTime;
     @NonNull
     private final TimeUnit cacheTimeUnit;
+    @NonNull
+    private final HashedTimerWheel.Timeout cacheExpiration = CACHE_TIME_WHEEL.newTimeout(this::onCacheTimeExpired);
+    // time of disconnect by System.nanoTime() or null if disconnect is not scheduled; guarded by lock
     @Nullable
-    private Scheduler.Worker worker;
+    private Long disconnectTimeNanos;
 
     /**
      * Use this lock for every subscription and disconnect action.
@@ -78,10 +87,7 @@ public final class OnSubscribeRefCountWithCacheTime<T> implements OnSubscribe<T>
 
         lock.lock();
         if (subscriptionCount.incrementAndGet() == 1) {
-            if (worker != null) {
-                worker.unsubscribe();
-                worker = null;
-            }
+            cancelDisconnect();
             final AtomicBoolean writeLocked = new AtomicBoolean(true);
 
             try {
@@ -151,7 +157,7 @@ public final class OnSubscribeRefCountWithCacheTime<T> implements OnSubscribe<T>
                 lock.lock();
                 try {
                     if (baseSubscription == currentBase) {
-                        cleanupWorker();
+                        cancelDisconnect();
                         // backdoor into the ConnectableObservable to cleanup and reset its state
                         if (source instanceof Subscription) {
                             ((Subscription) source).unsubscribe();
@@ -173,29 +179,8 @@ public final class OnSubscribeRefCountWithCacheTime<T> implements OnSubscribe<T>
             lock.lock();
             try {
                 if (baseSubscription == current && subscriptionCount.decrementAndGet() == 0) {
-                    if (worker != null) {
-                        worker.unsubscribe();
-                    } else {
-                        worker = scheduler.createWorker();
-                    }
-                    worker.schedule(() -> {
-                        lock.lock();
-                        try {
-                            if (subscriptionCount.get() == 0) {
-                                cleanupWorker();
-                                // backdoor into the ConnectableObservable to cleanup and reset its state
-                                if (source instanceof Subscription) {
-                                    ((Subscription) source).unsubscribe();
-                                }
-                                baseSubscription.unsubscribe();
-                                // need a new baseSubscription because once
-                                // unsubscribed stays that way
-                                baseSubscription = new CompositeSubscription();
-                            }
-                        } finally {
-                            lock.unlock();
-                        }
-                    }, cacheTime, cacheTimeUnit);
+                    disconnectTimeNanos = System.nanoTime() + cacheTimeUnit.toNanos(cacheTime);
+                    cacheExpiration.schedule(cacheTime, cacheTimeUnit);
                 }
             } finally {
                 lock.unlock();
@@ -203,10 +188,28 @@ public final class OnSubscribeRefCountWithCacheTime<T> implements OnSubscribe<T>
         });
     }
 
-    private void cleanupWorker() {
-        if (worker != null) {
-            worker.unsubscribe();
-            worker = null;
+    private void cancelDisconnect() {
+        disconnectTimeNanos = null;
+        cacheExpiration.cancel();
+    }
+
+    private void onCacheTimeExpired() {
+        lock.lock();
+        try {
+            // expiration could be executed after resubscription or rescheduling so it should be ignored if time have not come yet
+            if (subscriptionCount.get() == 0 && disconnectTimeNanos != null && System.nanoTime() - disconnectTimeNanos >= 0) {
+                disconnectTimeNanos = null;
+                // backdoor into the ConnectableObservable to cleanup and reset its state
+                if (source instanceof Subscription) {
+                    ((Subscription) source).unsubscribe();
+                }
+                baseSubscription.unsubscribe();
+                // need a new baseSubscription because once
+                // unsubscribed stays that way
+                baseSubscription = new CompositeSubscription();
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -0,0 +1,193 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.schedulers.Schedulers;
+import rx.subjects.BehaviorSubject;
+
+/**
+ * Pool of serial lanes which are sharing small fixed count of threads.
+ * Each lane executes it's tasks one by one in order of adding (like single thread executor) but it is not holding thread.
+ * So count of threads is not depending on count of lanes.
+ * Use it instead of {@code Schedulers.from(Executors.newSingleThreadExecutor())} for objects which could be created a lot.
+ */
+public class SerialLanesPool {
+
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 30;
+
+    @NonNull
+    private final ThreadPoolExecutor executor;
+    @NonNull
+    private final AtomicInteger activeLanesCount = new AtomicInteger();
+
+    /**
+     * Creates pool of lanes.
+     *
+     * @param name         Name of pool to name threads;
+     * @param threadsCount Maximum count of threads to execute tasks of lanes.
+     */
+    public SerialLanesPool(@NonNull final String name, final int threadsCount) {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threadsCount, threadsCount, THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    final Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Creates new lane. Lane should be released by {@link Lane#release()} when it is not needed anymore.
+     *
+     * @return New serial lane.
+     */
+    @NonNull
+    public Lane acquireLane() {
+        activeLanesCount.incrementAndGet();
+        return new Lane();
+    }
+
+    /**
+     * Returns count of acquired and not released lanes.
+     *
+     * @return Count of lanes.
+     */
+    public int getActiveLanesCount() {
+        return activeLanesCount.get();
+    }
+
+    /**
+     * Returns count of threads that are currently alive in pool.
+     *
+     * @return Count of threads.
+     */
+    public int getThreadsCount() {
+        return executor.getPoolSize();
+    }
+
+    /**
+     * Serial lane which is executing it's tasks one by one on threads of pool.
+     */
+    public class Lane implements Executor {
+
+        @NonNull
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        @NonNull
+        private final Scheduler scheduler = Schedulers.from(this);
+        @NonNull
+        private final BehaviorSubject<Boolean> releaseEvent = BehaviorSubject.create();
+        private boolean running;
+        private boolean released;
+
+        /**
+         * Returns {@link Scheduler} which is scheduling all work of it's workers serially on this lane.
+         *
+         * @return Scheduler of lane.
+         */
+        @NonNull
+        public Scheduler getScheduler() {
+            return scheduler;
+        }
+
+        /**
+         * Returns transformer which is unsubscribing from source and emitting {@link RejectedExecutionException} when lane is released.
+         * Tasks of released lane are rejected out of observable chain so observables working on lane would wait forever without it.
+         *
+         * @param <T> Type of items of source;
+         * @return Transformer to apply to observables which are working on lane.
+         */
+        @NonNull
+        public <T> Observable.Transformer<T, T> failOnRelease() {
+            return source -> Observable.defer(() -> {
+                final AtomicBoolean completed = new AtomicBoolean();
+                return source
+                        .doOnCompleted(() -> completed.set(true))
+                        .takeUntil(releaseEvent)
+                        .concatWith(Observable.defer(() -> completed.get()
+                                ? Observable.<T>empty()
+                                : Observable.<T>error(new RejectedExecutionException("Lane have been released"))));
+            });
+        }
+
+        @Override
+        public void execute(@NonNull final Runnable task) {
+            synchronized (tasks) {
+                if (released) {
+                    throw new RejectedExecutionException("Lane have been released");
+                }
+                tasks.add(task);
+                if (!running) {
+                    running = true;
+                    executor.execute(this::executeNext);
+                }
+            }
+        }
+
+        private void executeNext() {
+            final Runnable task;
+            synchronized (tasks) {
+                task = tasks.poll();
+                if (task == null) {
+                    running = false;
+                    return;
+                }
+            }
+            try {
+                task.run();
+            } finally {
+                // returning thread to pool after each task so other lanes are not starving
+                executor.execute(this::executeNext);
+            }
+        }
+
+        /**
+         * Releases lane. Already added tasks will be executed but new tasks will be rejected.
+         * Observables transformed by {@link #failOnRelease()} are failing right after that.
+         */
+        public void release() {
+            synchronized (tasks) {
+                if (released) {
+                    return;
+                }
+                released = true;
+                activeLanesCount.decrementAndGet();
+            }
+            releaseEvent.onNext(true);
+        }
+
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections;
+
+import android.support.annotation.NonNull;
+
+import java.util.BitSet;
+import java.util.Collection;
+
+import ru.touchin.roboswag.core.observables.collections.changes.Change;
+
+/**
+ * Utilities to keep {@link BitSet} of collection positions actual while {@link Change}s are applying to collection.
+ */
+final class ChangesBitSets {
+
+    /**
+     * Shifts bits by inserted/removed/moved change. Inserted positions are cleared.
+     *
+     * @param bits   Bits to shift;
+     * @param change Change applied to collection.
+     */
+    public static void shift(@NonNull final BitSet bits, @NonNull final Change change) {
+        if (change instanceof Change.Inserted) {
+            insert(bits, ((Change.Inserted) change).getPosition(), ((Change.Inserted) change).getCount());
+        } else if (change instanceof Change.Removed) {
+            remove(bits, ((Change.Removed) change).getPosition(), ((Change.Removed) change).getCount());
+        } else if (change instanceof Change.Moved) {
+            move(bits, ((Change.Moved) change).getFromPosition(), ((Change.Moved) change).getToPosition());
+        }
+    }
+
+    /**
+     * Calculates positions of changed (and optionally inserted) items after all changes applied to collection.
+     *
+     * @param changes         Changes applied to collection;
+     * @param includeInserted Flag to mark inserted positions also;
+     * @return Positions of changed items.
+     */
+    @NonNull
+    public static BitSet calculateChangedPositions(@NonNull final Collection<Change> changes, final boolean includeInserted) {
+        final BitSet result = new BitSet();
+        for (final Change change : changes) {
+            shift(result, change);
+            if (change instanceof Change.Changed) {
+                final Change.Changed changed = (Change.Changed) change;
+                result.set(changed.getPosition(), changed.getPosition() + changed.getCount());
+            } else if (includeInserted && change instanceof Change.Inserted) {
+                final Change.Inserted inserted = (Change.Inserted) change;
+                result.set(inserted.getPosition(), inserted.getPosition() + inserted.getCount());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Calculates size of collection after all changes applied.
+     *
+     * @param changes     Changes applied to collection;
+     * @param initialSize Size of collection before changes;
+     * @return Size of collection after changes.
+     */
+    public static int calculateSize(@NonNull final Collection<Change> changes, final int initialSize) {
+        int result = initialSize;
+        for (final Change change : changes) {
+            if (change instanceof Change.Inserted) {
+                result += ((Change.Inserted) change).getCount();
+            } else if (change instanceof Change.Removed) {
+                result -= ((Change.Removed) change).getCount();
+            }
+        }
+        return result;
+    }
+
+    private static void insert(@NonNull final BitSet bits, final int position, final int count) {
+        final int length = bits.length();
+        if (position >= length) {
+            return;
+        }
+        final BitSet tail = bits.get(position, length);
+        bits.clear(position, length);
+        for (int i = tail.nextSetBit(0); i >= 0; i = tail.nextSetBit(i + 1)) {
+            bits.set(position + count + i);
+        }
+    }
+
+    private static void remove(@NonNull final BitSet bits, final int position, final int count) {
+        final int length = bits.length();
+        if (position >= length) {
+            return;
+        }
+        final BitSet tail = bits.get(Math.min(position + count, length), length);
+        bits.clear(position, length);
+        for (int i = tail.nextSetBit(0); i >= 0; i = tail.nextSetBit(i + 1)) {
+            bits.set(position + i);
+        }
+    }
+
+    private static void move(@NonNull final BitSet bits, final int fromPosition, final int toPosition) {
+        final boolean value = bits.get(fromPosition);
+        remove(bits, fromPosition, 1);
+        insert(bits, toPosition, 1);
+        bits.set(toPosition, value);
+    }
+
+    private ChangesBitSets() {
+    }
+
+}
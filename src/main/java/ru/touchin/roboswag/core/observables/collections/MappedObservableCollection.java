@@ -0,0 +1,196 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections;
+
+import android.support.annotation.NonNull;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import ru.touchin.roboswag.core.observables.collections.changes.Change;
+import ru.touchin.roboswag.core.observables.collections.changes.CollectionChanges;
+import rx.Subscription;
+import rx.functions.Func1;
+
+/**
+ * {@link ObservableCollection} that is a view of source collection with items mapped by function.
+ * Items are mapped lazily on {@link #get(int)} and mapped values are cached until source collection reports them as changed or removed.
+ * Changes of source collection are forwarded with same positions.
+ *
+ * @param <TSourceItem> Type of source collection's items;
+ * @param <TItem>       Type of mapped items.
+ */
+public class MappedObservableCollection<TSourceItem, TItem> extends ObservableCollection<TItem> {
+
+    @NonNull
+    private final ObservableCollection<TSourceItem> sourceCollection;
+    @NonNull
+    private final Func1<TSourceItem, TItem> mapper;
+    // null means that item is not mapped yet
+    @NonNull
+    private final List<TItem> mappedItems;
+    @NonNull
+    private final Subscription sourceCollectionSubscription;
+    private int cacheVersion;
+
+    public MappedObservableCollection(@NonNull final ObservableCollection<TSourceItem> sourceCollection,
+                                      @NonNull final Func1<TSourceItem, TItem> mapper) {
+        super();
+        this.sourceCollection = sourceCollection;
+        this.mapper = mapper;
+        this.mappedItems = new ArrayList<>(Collections.nCopies(sourceCollection.size(), null));
+        // observing without scheduler so changes are forwarded right after source collection have changed
+        this.sourceCollectionSubscription = sourceCollection.observeChanges().subscribe(this::onSourceChanged);
+    }
+
+    private void onSourceChanged(@NonNull final CollectionChanges<TSourceItem> changes) {
+        synchronized (this) {
+            cacheVersion++;
+            if (ChangesBitSets.calculateSize(changes.getChanges(), mappedItems.size()) == sourceCollection.size()) {
+                applyChangesToCache(changes.getChanges());
+            } else {
+                // cache is not matching source collection so it is easier to drop it
+                mappedItems.clear();
+                mappedItems.addAll(Collections.nCopies(sourceCollection.size(), null));
+            }
+        }
+        notifyAboutChanges(new LazyMappedList(changes.getInsertedItems()), new LazyMappedList(changes.getRemovedItems()), changes.getChanges());
+    }
+
+    private void applyChangesToCache(@NonNull final Collection<Change> changes) {
+        for (final Change change : changes) {
+            if (change instanceof Change.Inserted) {
+                final Change.Inserted inserted = (Change.Inserted) change;
+                mappedItems.addAll(inserted.getPosition(), Collections.nCopies(inserted.getCount(), null));
+            } else if (change instanceof Change.Removed) {
+                final Change.Removed removed = (Change.Removed) change;
+                mappedItems.subList(removed.getPosition(), removed.getPosition() + removed.getCount()).clear();
+            } else if (change instanceof Change.Moved) {
+                final Change.Moved moved = (Change.Moved) change;
+                mappedItems.add(moved.getToPosition(), mappedItems.remove(moved.getFromPosition()));
+            } else if (change instanceof Change.Changed) {
+                final Change.Changed changed = (Change.Changed) change;
+                Collections.fill(mappedItems.subList(changed.getPosition(), changed.getPosition() + changed.getCount()), null);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return sourceCollection.size();
+    }
+
+    @NonNull
+    @Override
+    public TItem get(final int position) {
+        final int version;
+        synchronized (this) {
+            final TItem mappedItem = position < mappedItems.size() ? mappedItems.get(position) : null;
+            if (mappedItem != null) {
+                return mappedItem;
+            }
+            version = cacheVersion;
+        }
+        // mapping outside of lock as source collection could take it's own lock
+        final TItem mappedItem = mapper.call(sourceCollection.get(position));
+        synchronized (this) {
+            if (version == cacheVersion && position < mappedItems.size()) {
+                mappedItems.set(position, mappedItem);
+            }
+        }
+        return mappedItem;
+    }
+
+    @NonNull
+    @Override
+    public Collection<TItem> getItems() {
+        final int size = size();
+        final List<TItem> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(get(i));
+        }
+        return Collections.unmodifiableCollection(result);
+    }
+
+    /**
+     * Drops all cached mapped items so they will be mapped again on next access.
+     * Use it if mapping result depends on something except source item.
+     */
+    public void invalidate() {
+        synchronized (this) {
+            cacheVersion++;
+            Collections.fill(mappedItems, null);
+        }
+    }
+
+    /**
+     * Stops observing of source collection. After that collection won't be updated anymore.
+     */
+    public void dispose() {
+        sourceCollectionSubscription.unsubscribe();
+    }
+
+    /**
+     * Returns source non-mapped observable collection of items.
+     *
+     * @return Non-mapped collection of items.
+     */
+    @NonNull
+    public ObservableCollection<TSourceItem> getSourceCollection() {
+        return sourceCollection;
+    }
+
+    private class LazyMappedList extends AbstractList<TItem> {
+
+        @NonNull
+        private final List<TSourceItem> sourceItems;
+        @NonNull
+        private final List<TItem> items;
+
+        public LazyMappedList(@NonNull final List<TSourceItem> sourceItems) {
+            super();
+            this.sourceItems = sourceItems;
+            this.items = new ArrayList<>(Collections.nCopies(sourceItems.size(), null));
+        }
+
+        @NonNull
+        @Override
+        public TItem get(final int position) {
+            synchronized (items) {
+                TItem item = items.get(position);
+                if (item == null) {
+                    item = mapper.call(sourceItems.get(position));
+                    items.set(position, item);
+                }
+                return item;
+            }
+        }
+
+        @Override
+        public int size() {
+            return sourceItems.size();
+        }
+
+    }
+
+}
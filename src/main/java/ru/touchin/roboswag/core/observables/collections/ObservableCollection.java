@@ -25,12 +25,16 @@ import android.support.annotation.Nullable;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
 import ru.touchin.roboswag.core.observables.collections.changes.Change;
 import ru.touchin.roboswag.core.observables.collections.changes.CollectionChanges;
+import ru.touchin.roboswag.core.observables.collections.changes.ViewportChanges;
+import ru.touchin.roboswag.core.observables.collections.changes.ViewportChangesCalculator;
+import ru.touchin.roboswag.core.utils.pairs.HalfNullablePair;
 import rx.Emitter;
 import rx.Observable;
 
@@ -123,6 +127,43 @@ public abstract class ObservableCollection<TItem> {
         return changesObservable;
     }
 
+    /**
+     * Observes only changes that are intersecting window of positions. Window is moving with it's items by inserts and removes.
+     * Changes outside of window are summarised as window shift and count delta so it is useful for big collections
+     * which are only partially shown (e.g. visible rows of list).
+     * Every insert or remove is emitted: inside window as change and outside of window as window shift and count delta.
+     * Only changes which are just changing items outside of window are not emitted.
+     * Window could not be moved other way than by inserts and removes so to show other positions (e.g. on scrolling)
+     * it is needed to unsubscribe and to observe changes of new window.
+     *
+     * @param windowStart Start position of window (inclusive);
+     * @param windowEnd   End position of window (exclusive);
+     * @return Changes of window.
+     */
+    @NonNull
+    public Observable<ViewportChanges> observeChanges(final int windowStart, final int windowEnd) {
+        return Observable.defer(() -> {
+            final ViewportChangesCalculator calculator = new ViewportChangesCalculator(windowStart, windowEnd);
+            return observeChanges()
+                    .map(calculator::calculate)
+                    .filter(viewportChanges -> viewportChanges != null);
+        });
+    }
+
+    /**
+     * Observes changes paired with copy of items that is taken right at changes emitting moment so items are matching changes.
+     * First emitted pair contains items at subscription moment and no changes.
+     * It is useful to update some derived collection incrementally on other thread.
+     *
+     * @return Pairs of items and changes applied to collection.
+     */
+    @NonNull
+    Observable<HalfNullablePair<List<TItem>, CollectionChanges<TItem>>> observeItemsWithChanges() {
+        return Observable.switchOnNext(Observable.fromCallable(() -> observeChanges()
+                .map(changes -> new HalfNullablePair<List<TItem>, CollectionChanges<TItem>>(new ArrayList<>(getItems()), changes))
+                .startWith(new HalfNullablePair<>(new ArrayList<>(getItems()), null))));
+    }
+
     /**
      * Returns already loaded item by position.
      * Use it carefully for collections which are loading asynchronously.
@@ -0,0 +1,315 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import ru.touchin.roboswag.core.observables.collections.changes.Change;
+import ru.touchin.roboswag.core.observables.collections.changes.CollectionChanges;
+import ru.touchin.roboswag.core.observables.collections.changes.DefaultCollectionsChangesCalculator;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.functions.Func1;
+import rx.schedulers.Schedulers;
+
+/**
+ * {@link ObservableCollection} based on source collection with several independent filters (facets) inside.
+ * Each facet keeps it's own bitset of source positions which are passing it so changing of one facet recalculates only that facet
+ * and result is calculated by AND-ing of all bitsets.
+ * Bitsets are updated incrementally by changes of source collection so only inserted and changed items are filtered again.
+ *
+ * @param <TItem> Type of collection's items.
+ */
+public class ObservableFacetedFilteredList<TItem> extends ObservableCollection<TItem> {
+
+    // we need to filter on 1 thread to prevent parallel filtering
+    private static final Scheduler FILTER_SCHEDULER = Schedulers.from(Executors.newSingleThreadExecutor());
+
+    @NonNull
+    private final Scheduler.Worker filterWorker = FILTER_SCHEDULER.createWorker();
+    @NonNull
+    private final Map<String, Facet<TItem>> facets = new LinkedHashMap<>();
+    @NonNull
+    private List<TItem> sourceItems = new ArrayList<>();
+    @NonNull
+    private BitSet resultBits = new BitSet();
+    @NonNull
+    private List<TItem> filteredList = new ArrayList<>();
+    @NonNull
+    private ObservableCollection<TItem> sourceCollection;
+    @Nullable
+    private Subscription sourceCollectionSubscription;
+
+    public ObservableFacetedFilteredList() {
+        this(new ObservableList<>());
+    }
+
+    public ObservableFacetedFilteredList(@NonNull final Collection<TItem> sourceCollection) {
+        this(new ObservableList<>(sourceCollection));
+    }
+
+    public ObservableFacetedFilteredList(@NonNull final ObservableCollection<TItem> sourceCollection) {
+        super();
+        this.sourceCollection = sourceCollection;
+        updateInternal();
+    }
+
+    /**
+     * Sets collection of items to filter.
+     *
+     * @param sourceCollection Collection with items.
+     */
+    public void setSourceCollection(@Nullable final ObservableCollection<TItem> sourceCollection) {
+        this.sourceCollection = sourceCollection != null ? sourceCollection : new ObservableList<>();
+        updateInternal();
+    }
+
+    /**
+     * Sets collection of items to filter.
+     *
+     * @param sourceCollection Collection with items.
+     */
+    public void setSourceCollection(@Nullable final Collection<TItem> sourceCollection) {
+        this.sourceCollection = sourceCollection != null ? new ObservableList<>(sourceCollection) : new ObservableList<>();
+        updateInternal();
+    }
+
+    /**
+     * Sets or replaces facet by name. Only bitset of this facet will be recalculated.
+     *
+     * @param facetName Name of facet;
+     * @param filter    Function to filter item. True - item will stay, false - item will be filtered. Null - facet will be removed.
+     */
+    public void setFacet(@NonNull final String facetName, @Nullable final Func1<TItem, Boolean> filter) {
+        filterWorker.schedule(() -> {
+            if (filter == null) {
+                if (facets.remove(facetName) == null) {
+                    return;
+                }
+            } else {
+                final Facet<TItem> facet = new Facet<>(filter);
+                facet.recalculate(sourceItems);
+                facets.put(facetName, facet);
+            }
+            onFacetsChanged();
+        });
+    }
+
+    /**
+     * Removes facet by name.
+     *
+     * @param facetName Name of facet.
+     */
+    public void removeFacet(@NonNull final String facetName) {
+        setFacet(facetName, null);
+    }
+
+    /**
+     * Recalculates facet by name. Use it if some item's parameter which is important for this facet have changed.
+     *
+     * @param facetName Name of facet.
+     */
+    public void updateFacet(@NonNull final String facetName) {
+        filterWorker.schedule(() -> {
+            final Facet<TItem> facet = facets.get(facetName);
+            if (facet != null) {
+                facet.recalculate(sourceItems);
+                onFacetsChanged();
+            }
+        });
+    }
+
+    /**
+     * Recalculates all facets. Use it if some item's parameter which is important for filtering have changed.
+     */
+    public void update() {
+        updateInternal();
+    }
+
+    private void updateInternal() {
+        if (sourceCollectionSubscription != null) {
+            sourceCollectionSubscription.unsubscribe();
+            sourceCollectionSubscription = null;
+        }
+        sourceCollectionSubscription = sourceCollection.observeItemsWithChanges()
+                .observeOn(FILTER_SCHEDULER)
+                .subscribe(update -> onSourceChanged(update.getFirst(), update.getSecond()));
+    }
+
+    private void onSourceChanged(@NonNull final List<TItem> newSourceItems, @Nullable final CollectionChanges<TItem> changes) {
+        if (changes == null || !applySourceChanges(changes.getChanges(), newSourceItems)) {
+            for (final Facet<TItem> facet : facets.values()) {
+                facet.recalculate(newSourceItems);
+            }
+        }
+        sourceItems = newSourceItems;
+
+        final List<TItem> oldFilteredList = filteredList;
+        resultBits = calculateResultBits();
+        filteredList = collectFilteredItems();
+        final DefaultCollectionsChangesCalculator<TItem> calculator
+                = new DefaultCollectionsChangesCalculator<>(oldFilteredList, filteredList, false);
+        notifyAboutChanges(calculator.calculateInsertedItems(), calculator.calculateRemovedItems(), calculator.calculateChanges());
+    }
+
+    private boolean applySourceChanges(@NonNull final Collection<Change> changes, @NonNull final List<TItem> newSourceItems) {
+        if (ChangesBitSets.calculateSize(changes, sourceItems.size()) != newSourceItems.size()) {
+            return false;
+        }
+        for (final Change change : changes) {
+            for (final Facet<TItem> facet : facets.values()) {
+                ChangesBitSets.shift(facet.bits, change);
+            }
+        }
+        final BitSet dirtyBits = ChangesBitSets.calculateChangedPositions(changes, true);
+        for (int i = dirtyBits.nextSetBit(0); i >= 0 && i < newSourceItems.size(); i = dirtyBits.nextSetBit(i + 1)) {
+            final TItem item = newSourceItems.get(i);
+            for (final Facet<TItem> facet : facets.values()) {
+                facet.bits.set(i, facet.filter.call(item));
+            }
+        }
+        return true;
+    }
+
+    private void onFacetsChanged() {
+        final BitSet oldResultBits = resultBits;
+        final BitSet newResultBits = calculateResultBits();
+        final List<TItem> insertedItems = new ArrayList<>();
+        final List<TItem> removedItems = new ArrayList<>();
+        final List<Change> changes = new ArrayList<>();
+        // source positions are same so changes could be calculated by bitsets in one pass
+        int filteredPosition = 0;
+        for (int i = 0; i < sourceItems.size(); i++) {
+            final boolean wasPresent = oldResultBits.get(i);
+            final boolean isPresent = newResultBits.get(i);
+            if (wasPresent && !isPresent) {
+                removedItems.add(sourceItems.get(i));
+                addChange(changes, false, filteredPosition);
+            } else if (!wasPresent && isPresent) {
+                insertedItems.add(sourceItems.get(i));
+                addChange(changes, true, filteredPosition);
+                filteredPosition++;
+            } else if (isPresent) {
+                filteredPosition++;
+            }
+        }
+        resultBits = newResultBits;
+        filteredList = collectFilteredItems();
+        notifyAboutChanges(insertedItems, removedItems, changes);
+    }
+
+    private void addChange(@NonNull final List<Change> changes, final boolean inserted, final int filteredPosition) {
+        final Change lastChange = changes.isEmpty() ? null : changes.get(changes.size() - 1);
+        if (inserted) {
+            if (lastChange instanceof Change.Inserted
+                    && ((Change.Inserted) lastChange).getPosition() + ((Change.Inserted) lastChange).getCount() == filteredPosition) {
+                changes.set(changes.size() - 1,
+                        new Change.Inserted(((Change.Inserted) lastChange).getPosition(), ((Change.Inserted) lastChange).getCount() + 1));
+            } else {
+                changes.add(new Change.Inserted(filteredPosition, 1));
+            }
+        } else {
+            if (lastChange instanceof Change.Removed && ((Change.Removed) lastChange).getPosition() == filteredPosition) {
+                changes.set(changes.size() - 1, new Change.Removed(filteredPosition, ((Change.Removed) lastChange).getCount() + 1));
+            } else {
+                changes.add(new Change.Removed(filteredPosition, 1));
+            }
+        }
+    }
+
+    @NonNull
+    private BitSet calculateResultBits() {
+        final BitSet result = new BitSet(sourceItems.size());
+        result.set(0, sourceItems.size());
+        for (final Facet<TItem> facet : facets.values()) {
+            result.and(facet.bits);
+        }
+        return result;
+    }
+
+    @NonNull
+    private List<TItem> collectFilteredItems() {
+        final List<TItem> result = new ArrayList<>(resultBits.cardinality());
+        for (int i = resultBits.nextSetBit(0); i >= 0 && i < sourceItems.size(); i = resultBits.nextSetBit(i + 1)) {
+            result.add(sourceItems.get(i));
+        }
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return filteredList.size();
+    }
+
+    @NonNull
+    @Override
+    public TItem get(final int position) {
+        return filteredList.get(position);
+    }
+
+    @NonNull
+    @Override
+    public Collection<TItem> getItems() {
+        return Collections.unmodifiableCollection(filteredList);
+    }
+
+    /**
+     * Returns source non-filtered observable collection of items.
+     *
+     * @return Non-filtered collection of items.
+     */
+    @NonNull
+    public ObservableCollection<TItem> getSourceCollection() {
+        return sourceCollection;
+    }
+
+    private static class Facet<TItem> {
+
+        @NonNull
+        private final Func1<TItem, Boolean> filter;
+        @NonNull
+        private final BitSet bits = new BitSet();
+
+        public Facet(@NonNull final Func1<TItem, Boolean> filter) {
+            this.filter = filter;
+        }
+
+        public void recalculate(@NonNull final List<TItem> items) {
+            bits.clear();
+            for (int i = 0; i < items.size(); i++) {
+                if (filter.call(items.get(i))) {
+                    bits.set(i);
+                }
+            }
+        }
+
+    }
+
+}
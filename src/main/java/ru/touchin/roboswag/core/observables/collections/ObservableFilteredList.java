@@ -4,11 +4,17 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
+import ru.touchin.roboswag.core.observables.collections.changes.CollectionChanges;
 import ru.touchin.roboswag.core.observables.collections.changes.DefaultCollectionsChangesCalculator;
 import rx.Scheduler;
 import rx.Subscription;
@@ -44,6 +50,12 @@ public class ObservableFilteredList<TItem> extends ObservableCollection<TItem> {
 
     @NonNull
     private List<TItem> filteredList;
+    @Nullable
+    private FilterResultsCache<TItem> filterResultsCache;
+    @NonNull
+    private final AtomicLong filterCacheHitsCount = new AtomicLong();
+    @NonNull
+    private final AtomicLong filterCacheMissesCount = new AtomicLong();
     @NonNull
     private ObservableCollection<TItem> sourceCollection;
     @Nullable
@@ -101,11 +113,58 @@ public class ObservableFilteredList<TItem> extends ObservableCollection<TItem> {
         updateInternal();
     }
 
+    /**
+     * Enables caching of filter results per item so filter won't be called again for items that are not changed.
+     * Cached result of item is invalidated only if item reported as changed or removed by source collection's changes.
+     * Results of items which are not in source collection anymore (e.g. items replaced by {@link ObservableList#update(int, Object)})
+     * are dropped after each filtering so cache is not growing and not holding old items.
+     * All cached results are invalidated by {@link #setFilter(Func1)}, {@link #update()} or changing of source collection.
+     * Use it if filter is expensive (regex, locale-aware collation etc.).
+     *
+     * @param keyProvider Function that returns key of item to cache result by. If it is null then items are compared by identity.
+     */
+    public void enableFilterResultsCache(@Nullable final Func1<TItem, ?> keyProvider) {
+        filterResultsCache = new FilterResultsCache<>(keyProvider);
+        updateInternal();
+    }
+
+    /**
+     * Disables caching of filter results.
+     */
+    public void disableFilterResultsCache() {
+        filterResultsCache = null;
+        updateInternal();
+    }
+
+    /**
+     * Returns count of filter calls that have been skipped because of cached result.
+     *
+     * @return Count of cache hits.
+     */
+    public long getFilterCacheHitsCount() {
+        return filterCacheHitsCount.get();
+    }
+
+    /**
+     * Returns count of filter calls that have been made because there was no cached result.
+     *
+     * @return Count of cache misses.
+     */
+    public long getFilterCacheMissesCount() {
+        return filterCacheMissesCount.get();
+    }
+
     private void updateInternal() {
         if (sourceCollectionSubscription != null) {
             sourceCollectionSubscription.unsubscribe();
             sourceCollectionSubscription = null;
         }
+        if (filterResultsCache != null) {
+            // cached results are not actual anymore as filter, source collection or items have changed
+            filterResultsCache = new FilterResultsCache<>(filterResultsCache.keyProvider);
+            subscribeWithFilterResultsCache(sourceCollection);
+            return;
+        }
         sourceCollectionSubscription = sourceCollection.observeItems()
                 .observeOn(FILTER_SCHEDULER)
                 .subscribe(items -> {
@@ -117,6 +176,55 @@ public class ObservableFilteredList<TItem> extends ObservableCollection<TItem> {
                 });
     }
 
+    private void subscribeWithFilterResultsCache(@NonNull final ObservableCollection<TItem> collection) {
+        sourceCollectionSubscription = collection.observeItemsWithChanges()
+                .observeOn(FILTER_SCHEDULER)
+                .subscribe(update -> {
+                    final FilterResultsCache<TItem> cache = filterResultsCache;
+                    final List<TItem> items = update.getFirst();
+                    final CollectionChanges<TItem> changes = update.getSecond();
+                    if (cache != null && changes != null) {
+                        for (final TItem removedItem : changes.getRemovedItems()) {
+                            cache.invalidate(removedItem);
+                        }
+                        final BitSet changedPositions = ChangesBitSets.calculateChangedPositions(changes.getChanges(), false);
+                        for (int i = changedPositions.nextSetBit(0); i >= 0 && i < items.size(); i = changedPositions.nextSetBit(i + 1)) {
+                            cache.invalidate(items.get(i));
+                        }
+                    }
+                    final List<TItem> oldFilteredList = filteredList;
+                    filteredList = cache != null && filter != null ? filterCollection(items, filter, cache) : filterCollection(items, filter);
+                    final DefaultCollectionsChangesCalculator<TItem> calculator
+                            = new DefaultCollectionsChangesCalculator<>(oldFilteredList, filteredList, false);
+                    notifyAboutChanges(calculator.calculateInsertedItems(), calculator.calculateRemovedItems(), calculator.calculateChanges());
+                });
+    }
+
+    @NonNull
+    private List<TItem> filterCollection(@NonNull final Collection<TItem> sourceCollection,
+                                         @NonNull final Func1<TItem, Boolean> filter,
+                                         @NonNull final FilterResultsCache<TItem> cache) {
+        final List<TItem> result = new ArrayList<>(sourceCollection.size());
+        // keeping only results of current items
+        final Map<Object, Boolean> actualResults = cache.createResultsMap();
+        for (final TItem item : sourceCollection) {
+            final Object key = cache.getKey(item);
+            Boolean passed = cache.results.get(key);
+            if (passed != null) {
+                filterCacheHitsCount.incrementAndGet();
+            } else {
+                filterCacheMissesCount.incrementAndGet();
+                passed = filter.call(item);
+            }
+            actualResults.put(key, passed);
+            if (passed) {
+                result.add(item);
+            }
+        }
+        cache.results = actualResults;
+        return result;
+    }
+
     /**
      * Updates collection by current filter. Use it if some item's parameter which is important for filtering have changing.
      */
@@ -151,4 +259,32 @@ public class ObservableFilteredList<TItem> extends ObservableCollection<TItem> {
         return sourceCollection;
     }
 
+    private static class FilterResultsCache<TItem> {
+
+        @Nullable
+        private final Func1<TItem, ?> keyProvider;
+        @NonNull
+        private Map<Object, Boolean> results;
+
+        public FilterResultsCache(@Nullable final Func1<TItem, ?> keyProvider) {
+            this.keyProvider = keyProvider;
+            this.results = createResultsMap();
+        }
+
+        @NonNull
+        public Map<Object, Boolean> createResultsMap() {
+            return keyProvider != null ? new HashMap<>() : new IdentityHashMap<>();
+        }
+
+        @Nullable
+        public Object getKey(@NonNull final TItem item) {
+            return keyProvider != null ? keyProvider.call(item) : item;
+        }
+
+        public void invalidate(@NonNull final TItem item) {
+            results.remove(getKey(item));
+        }
+
+    }
+
 }
@@ -188,6 +188,25 @@ public class ObservableList<TItem> extends ObservableCollection<TItem> implement
         }
     }
 
+    /**
+     * Returns copy of items in range of positions. Range is cut by size of list.
+     *
+     * @param fromPosition Position of first item (inclusive);
+     * @param toPosition   Position after last item (exclusive);
+     * @return Items of range.
+     */
+    @NonNull
+    public Collection<TItem> getItems(final int fromPosition, final int toPosition) {
+        synchronized (this) {
+            final int start = Math.max(0, fromPosition);
+            final int end = Math.min(toPosition, items.size());
+            if (start >= end) {
+                return Collections.emptyList();
+            }
+            return Collections.unmodifiableCollection(new ArrayList<>(items.subList(start, end)));
+        }
+    }
+
     /**
      * Replace item at specific position.
      *
@@ -0,0 +1,336 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import ru.touchin.roboswag.core.observables.collections.changes.Change;
+import ru.touchin.roboswag.core.observables.collections.changes.CollectionChanges;
+import ru.touchin.roboswag.core.observables.collections.changes.DefaultCollectionsChangesCalculator;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.functions.Func1;
+import rx.schedulers.Schedulers;
+
+/**
+ * {@link ObservableCollection} based on source collection with filter and {@link Comparator} inside.
+ * Result is maintained incrementally by changes of source collection:
+ * new items are inserted by binary search, removed items are removed and changed items are relocated.
+ * So it is providing only minimal {@link Change.Inserted}, {@link Change.Removed}, {@link Change.Moved} and {@link Change.Changed} changes.
+ * Changing filter or comparator will recalculate whole collection.
+ *
+ * @param <TItem> Type of collection's items.
+ */
+public class ObservableSortedFilteredList<TItem> extends ObservableCollection<TItem> {
+
+    // we need to filter on 1 thread to prevent parallel filtering
+    private static final Scheduler FILTER_SCHEDULER = Schedulers.from(Executors.newSingleThreadExecutor());
+
+    @NonNull
+    private final List<Entry<TItem>> sourceEntries = new ArrayList<>();
+    @NonNull
+    private final List<Entry<TItem>> sortedEntries = new ArrayList<>();
+    @NonNull
+    private ObservableCollection<TItem> sourceCollection;
+    @Nullable
+    private Func1<TItem, Boolean> filter;
+    @NonNull
+    private Comparator<TItem> comparator;
+    @Nullable
+    private Subscription sourceCollectionSubscription;
+
+    public ObservableSortedFilteredList(@NonNull final Comparator<TItem> comparator) {
+        this(new ObservableList<>(), null, comparator);
+    }
+
+    public ObservableSortedFilteredList(@NonNull final Collection<TItem> sourceCollection,
+                                        @Nullable final Func1<TItem, Boolean> filter,
+                                        @NonNull final Comparator<TItem> comparator) {
+        this(new ObservableList<>(sourceCollection), filter, comparator);
+    }
+
+    public ObservableSortedFilteredList(@NonNull final ObservableCollection<TItem> sourceCollection,
+                                        @Nullable final Func1<TItem, Boolean> filter,
+                                        @NonNull final Comparator<TItem> comparator) {
+        super();
+        this.sourceCollection = sourceCollection;
+        this.filter = filter;
+        this.comparator = comparator;
+        updateInternal();
+    }
+
+    /**
+     * Sets collection of items to filter and sort.
+     *
+     * @param sourceCollection Collection with items.
+     */
+    public void setSourceCollection(@Nullable final ObservableCollection<TItem> sourceCollection) {
+        this.sourceCollection = sourceCollection != null ? sourceCollection : new ObservableList<>();
+        updateInternal();
+    }
+
+    /**
+     * Sets filter that should return false as result of call to filter item.
+     *
+     * @param filter Function to filter item. True - item will stay, false - item will be filtered.
+     */
+    public void setFilter(@Nullable final Func1<TItem, Boolean> filter) {
+        this.filter = filter;
+        updateInternal();
+    }
+
+    /**
+     * Sets comparator to sort items.
+     *
+     * @param comparator Comparator of items.
+     */
+    public void setComparator(@NonNull final Comparator<TItem> comparator) {
+        this.comparator = comparator;
+        updateInternal();
+    }
+
+    /**
+     * Updates collection by current filter and comparator.
+     * Use it if some item's parameter which is important for filtering or sorting have changed but changes of it was not provided by source.
+     */
+    public void update() {
+        updateInternal();
+    }
+
+    private void updateInternal() {
+        if (sourceCollectionSubscription != null) {
+            sourceCollectionSubscription.unsubscribe();
+            sourceCollectionSubscription = null;
+        }
+        final Func1<TItem, Boolean> currentFilter = filter;
+        final Comparator<TItem> currentComparator = comparator;
+        sourceCollectionSubscription = sourceCollection.observeItemsWithChanges()
+                .observeOn(FILTER_SCHEDULER)
+                .subscribe(update -> {
+                    final CollectionChanges<TItem> changes = update.getSecond();
+                    if (changes == null || !applySourceChanges(update.getFirst(), changes.getChanges(), currentFilter, currentComparator)) {
+                        rebuild(update.getFirst(), currentFilter, currentComparator);
+                    }
+                });
+    }
+
+    private boolean isPassing(@NonNull final TItem item, @Nullable final Func1<TItem, Boolean> filter) {
+        return filter == null || filter.call(item);
+    }
+
+    private void rebuild(@NonNull final List<TItem> items,
+                         @Nullable final Func1<TItem, Boolean> filter,
+                         @NonNull final Comparator<TItem> comparator) {
+        final List<Entry<TItem>> newSourceEntries = new ArrayList<>(items.size());
+        final List<Entry<TItem>> newSortedEntries = new ArrayList<>();
+        for (final TItem item : items) {
+            final Entry<TItem> entry = new Entry<>(item, isPassing(item, filter));
+            newSourceEntries.add(entry);
+            if (entry.passed) {
+                newSortedEntries.add(entry);
+            }
+        }
+        Collections.sort(newSortedEntries, (entry1, entry2) -> comparator.compare(entry1.item, entry2.item));
+
+        synchronized (this) {
+            final List<TItem> oldItems = extractItems(sortedEntries);
+            sourceEntries.clear();
+            sourceEntries.addAll(newSourceEntries);
+            sortedEntries.clear();
+            sortedEntries.addAll(newSortedEntries);
+            final DefaultCollectionsChangesCalculator<TItem> calculator
+                    = new DefaultCollectionsChangesCalculator<>(oldItems, extractItems(sortedEntries), false);
+            notifyAboutChanges(calculator.calculateInsertedItems(), calculator.calculateRemovedItems(), calculator.calculateChanges());
+        }
+    }
+
+    private boolean applySourceChanges(@NonNull final List<TItem> items,
+                                       @NonNull final Collection<Change> sourceChanges,
+                                       @Nullable final Func1<TItem, Boolean> filter,
+                                       @NonNull final Comparator<TItem> comparator) {
+        synchronized (this) {
+            if (ChangesBitSets.calculateSize(sourceChanges, sourceEntries.size()) != items.size()) {
+                return false;
+            }
+            final List<TItem> insertedItems = new ArrayList<>();
+            final List<TItem> removedItems = new ArrayList<>();
+            final List<Change> changes = new ArrayList<>();
+            for (final Change change : sourceChanges) {
+                if (change instanceof Change.Inserted) {
+                    final Change.Inserted inserted = (Change.Inserted) change;
+                    for (int i = 0; i < inserted.getCount(); i++) {
+                        // actual item will be set after all changes applied
+                        sourceEntries.add(inserted.getPosition() + i, new Entry<>(null, false));
+                    }
+                } else if (change instanceof Change.Removed) {
+                    final Change.Removed removed = (Change.Removed) change;
+                    for (int i = 0; i < removed.getCount(); i++) {
+                        final Entry<TItem> entry = sourceEntries.remove(removed.getPosition());
+                        if (entry.passed) {
+                            final int sortedPosition = indexOfSortedEntry(entry, comparator);
+                            sortedEntries.remove(sortedPosition);
+                            removedItems.add(entry.item);
+                            changes.add(new Change.Removed(sortedPosition, 1));
+                        }
+                    }
+                } else if (change instanceof Change.Moved) {
+                    final Change.Moved moved = (Change.Moved) change;
+                    sourceEntries.add(moved.getToPosition(), sourceEntries.remove(moved.getFromPosition()));
+                }
+            }
+
+            final BitSet changedPositions = ChangesBitSets.calculateChangedPositions(sourceChanges, true);
+            for (int i = changedPositions.nextSetBit(0); i >= 0 && i < items.size(); i = changedPositions.nextSetBit(i + 1)) {
+                final Entry<TItem> entry = sourceEntries.get(i);
+                final TItem item = items.get(i);
+                final boolean passed = isPassing(item, filter);
+                if (entry.passed) {
+                    final TItem oldItem = entry.item;
+                    final int oldSortedPosition = indexOfSortedEntry(entry, comparator);
+                    sortedEntries.remove(oldSortedPosition);
+                    entry.item = item;
+                    entry.passed = passed;
+                    if (passed) {
+                        final int newSortedPosition = findInsertPosition(item, comparator);
+                        sortedEntries.add(newSortedPosition, entry);
+                        if (newSortedPosition != oldSortedPosition) {
+                            changes.add(new Change.Moved(oldSortedPosition, newSortedPosition));
+                        }
+                        changes.add(new Change.Changed(newSortedPosition, 1, null));
+                    } else {
+                        removedItems.add(oldItem);
+                        changes.add(new Change.Removed(oldSortedPosition, 1));
+                    }
+                } else {
+                    entry.item = item;
+                    entry.passed = passed;
+                    if (passed) {
+                        final int sortedPosition = findInsertPosition(item, comparator);
+                        sortedEntries.add(sortedPosition, entry);
+                        insertedItems.add(item);
+                        changes.add(new Change.Inserted(sortedPosition, 1));
+                    }
+                }
+            }
+            notifyAboutChanges(insertedItems, removedItems, changes);
+            return true;
+        }
+    }
+
+    private int findInsertPosition(@NonNull final TItem item, @NonNull final Comparator<TItem> comparator) {
+        int low = 0;
+        int high = sortedEntries.size();
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (comparator.compare(sortedEntries.get(middle).item, item) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    @SuppressWarnings("PMD.CompareObjectsWithEquals")
+    //CompareObjectsWithEquals: entries are compared by identity
+    private int indexOfSortedEntry(@NonNull final Entry<TItem> entry, @NonNull final Comparator<TItem> comparator) {
+        int low = 0;
+        int high = sortedEntries.size();
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (comparator.compare(sortedEntries.get(middle).item, entry.item) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        for (int i = low; i < sortedEntries.size() && comparator.compare(sortedEntries.get(i).item, entry.item) == 0; i++) {
+            if (sortedEntries.get(i) == entry) {
+                return i;
+            }
+        }
+        // item could be mutated so it's sorting position is not actual anymore
+        return sortedEntries.indexOf(entry);
+    }
+
+    @NonNull
+    private List<TItem> extractItems(@NonNull final List<Entry<TItem>> entries) {
+        final List<TItem> result = new ArrayList<>(entries.size());
+        for (final Entry<TItem> entry : entries) {
+            result.add(entry.item);
+        }
+        return result;
+    }
+
+    @Override
+    public int size() {
+        synchronized (this) {
+            return sortedEntries.size();
+        }
+    }
+
+    @NonNull
+    @Override
+    public TItem get(final int position) {
+        synchronized (this) {
+            return sortedEntries.get(position).item;
+        }
+    }
+
+    @NonNull
+    @Override
+    public Collection<TItem> getItems() {
+        synchronized (this) {
+            return Collections.unmodifiableCollection(extractItems(sortedEntries));
+        }
+    }
+
+    /**
+     * Returns source non-filtered and non-sorted observable collection of items.
+     *
+     * @return Source collection of items.
+     */
+    @NonNull
+    public ObservableCollection<TItem> getSourceCollection() {
+        return sourceCollection;
+    }
+
+    private static class Entry<TItem> {
+
+        private TItem item;
+        private boolean passed;
+
+        public Entry(@Nullable final TItem item, final boolean passed) {
+            this.item = item;
+            this.passed = passed;
+        }
+
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections.changes;
+
+import android.support.annotation.NonNull;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Class which is representing changes of collection that are intersecting some window (viewport) of positions.
+ * Changes inside window have positions relative to window start.
+ * Changes outside window are summarised as shift of window and count of inserted/removed items outside of window.
+ */
+public class ViewportChanges {
+
+    private final int number;
+    @NonNull
+    private final Collection<Change> changes;
+    private final int windowStart;
+    private final int windowEnd;
+    private final int windowShift;
+    private final int outsideItemsCountDelta;
+
+    public ViewportChanges(final int number,
+                           @NonNull final Collection<Change> changes,
+                           final int windowStart,
+                           final int windowEnd,
+                           final int windowShift,
+                           final int outsideItemsCountDelta) {
+        this.number = number;
+        this.changes = Collections.unmodifiableCollection(changes);
+        this.windowStart = windowStart;
+        this.windowEnd = windowEnd;
+        this.windowShift = windowShift;
+        this.outsideItemsCountDelta = outsideItemsCountDelta;
+    }
+
+    /**
+     * Returns number of source collection's change.
+     *
+     * @return Number of change.
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * Returns changes inside window. Positions are relative to window start at the moment of each change
+     * so they could be applied one by one to items of window.
+     *
+     * @return Collection of changes.
+     */
+    @NonNull
+    public Collection<Change> getChanges() {
+        return changes;
+    }
+
+    /**
+     * Returns start position (inclusive) of window in collection after changes applied.
+     *
+     * @return Start position of window.
+     */
+    public int getWindowStart() {
+        return windowStart;
+    }
+
+    /**
+     * Returns end position (exclusive) of window in collection after changes applied.
+     *
+     * @return End position of window.
+     */
+    public int getWindowEnd() {
+        return windowEnd;
+    }
+
+    /**
+     * Returns offset of window start caused by items inserted or removed before window.
+     *
+     * @return Window shift.
+     */
+    public int getWindowShift() {
+        return windowShift;
+    }
+
+    /**
+     * Returns how much size of collection outside of window have changed.
+     *
+     * @return Count of inserted items minus count of removed items outside of window.
+     */
+    public int getOutsideItemsCountDelta() {
+        return outsideItemsCountDelta;
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections.changes;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calculator that is clipping changes of collection by window (viewport) of positions.
+ * Window is moving with it's items: items inserted or removed before window are shifting it
+ * and items inserted or removed inside window are expanding or shrinking it.
+ * It is stateful so one instance should be used for one sequence of changes.
+ */
+public class ViewportChangesCalculator {
+
+    private int windowStart;
+    private int windowEnd;
+
+    /**
+     * Creates calculator for window of positions.
+     *
+     * @param windowStart Start position of window (inclusive);
+     * @param windowEnd   End position of window (exclusive).
+     */
+    public ViewportChangesCalculator(final int windowStart, final int windowEnd) {
+        if (windowStart < 0 || windowEnd < windowStart) {
+            throw new IllegalArgumentException("Illegal window [" + windowStart + ", " + windowEnd + ")");
+        }
+        this.windowStart = windowStart;
+        this.windowEnd = windowEnd;
+    }
+
+    /**
+     * Calculates changes of window by changes of collection.
+     *
+     * @param collectionChanges Changes of collection;
+     * @return Changes of window or null if changes are not touching or shifting window and not changing count of items outside of it.
+     */
+    @Nullable
+    public ViewportChanges calculate(@NonNull final CollectionChanges<?> collectionChanges) {
+        final int initialWindowStart = windowStart;
+        final List<Change> changes = new ArrayList<>();
+        int outsideItemsCountDelta = 0;
+        for (final Change change : collectionChanges.getChanges()) {
+            if (change instanceof Change.Inserted) {
+                final Change.Inserted inserted = (Change.Inserted) change;
+                outsideItemsCountDelta += insert(changes, inserted.getPosition(), inserted.getCount());
+            } else if (change instanceof Change.Removed) {
+                final Change.Removed removed = (Change.Removed) change;
+                outsideItemsCountDelta -= remove(changes, removed.getPosition(), removed.getCount());
+            } else if (change instanceof Change.Moved) {
+                final Change.Moved moved = (Change.Moved) change;
+                if (isInside(moved.getFromPosition()) && isInside(moved.getToPosition())) {
+                    changes.add(new Change.Moved(moved.getFromPosition() - windowStart, moved.getToPosition() - windowStart));
+                } else {
+                    outsideItemsCountDelta -= remove(changes, moved.getFromPosition(), 1);
+                    outsideItemsCountDelta += insert(changes, moved.getToPosition(), 1);
+                }
+            } else if (change instanceof Change.Changed) {
+                final Change.Changed changed = (Change.Changed) change;
+                final int start = Math.max(changed.getPosition(), windowStart);
+                final int end = Math.min(changed.getPosition() + changed.getCount(), windowEnd);
+                if (start < end) {
+                    changes.add(new Change.Changed(start - windowStart, end - start, changed.getPayload()));
+                }
+            }
+        }
+        if (changes.isEmpty() && initialWindowStart == windowStart && outsideItemsCountDelta == 0) {
+            return null;
+        }
+        return new ViewportChanges(collectionChanges.getNumber(), changes,
+                windowStart, windowEnd, windowStart - initialWindowStart, outsideItemsCountDelta);
+    }
+
+    private boolean isInside(final int position) {
+        return position >= windowStart && position < windowEnd;
+    }
+
+    // returns count of items inserted outside of window
+    private int insert(@NonNull final List<Change> changes, final int position, final int count) {
+        if (position < windowStart) {
+            windowStart += count;
+            windowEnd += count;
+            return count;
+        }
+        if (position > windowEnd || (position == windowEnd && windowEnd > windowStart)) {
+            return count;
+        }
+        changes.add(new Change.Inserted(position - windowStart, count));
+        windowEnd += count;
+        return 0;
+    }
+
+    // returns count of items removed outside of window
+    private int remove(@NonNull final List<Change> changes, final int position, final int count) {
+        final int removedBefore = Math.max(0, Math.min(position + count, windowStart) - position);
+        final int insideStart = Math.max(position, windowStart);
+        final int insideCount = Math.max(0, Math.min(position + count, windowEnd) - insideStart);
+        if (insideCount > 0) {
+            changes.add(new Change.Removed(insideStart - windowStart, insideCount));
+        }
+        windowStart -= removedBefore;
+        windowEnd -= removedBefore + insideCount;
+        return count - insideCount;
+    }
+
+}
@@ -0,0 +1,302 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections.loadable;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import ru.touchin.roboswag.core.log.Lc;
+import ru.touchin.roboswag.core.observables.SerialLanesPool;
+import ru.touchin.roboswag.core.observables.collections.ObservableCollection;
+import ru.touchin.roboswag.core.observables.collections.ObservableList;
+import ru.touchin.roboswag.core.observables.collections.changes.Change;
+import ru.touchin.roboswag.core.observables.collections.changes.CollectionChanges;
+import ru.touchin.roboswag.core.utils.ShouldNotHappenException;
+import rx.Observable;
+import rx.Scheduler;
+import rx.exceptions.OnErrorThrowable;
+import rx.schedulers.Schedulers;
+import rx.subjects.BehaviorSubject;
+
+/**
+ * {@link ObservableCollection} which is loading items in both directions around some anchor (e.g. messages of chat or timeline).
+ * Head and tail of collection have their own {@link MoreItemsLoader}, reference and count of more items.
+ * Items loaded by head loader are inserted at position 0 in same order as they were loaded,
+ * items loaded by tail loader are added at the end. Head and tail are loading independently on different lanes.
+ * {@link MoreLoadRequest#getNextPosition()} is count of items loaded by same side (head or tail) so head loading is not changing tail requests.
+ *
+ * @param <TItem>          Type of collection's items;
+ * @param <TMoreReference> Type of reference object to help rightly loading next block of items;
+ * @param <TLoadedItems>   Type of loading block of items.
+ */
+public class BidirectionalLoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedItems<TItem, TMoreReference>>
+        extends ObservableCollection<TItem> {
+
+    private static final int RETRY_LOADING_AFTER_CHANGE_COUNT = 5;
+
+    @NonNull
+    private final ObservableList<TItem> innerList = new ObservableList<>();
+    @NonNull
+    private final Side head;
+    @NonNull
+    private final Side tail;
+
+    public BidirectionalLoadingMoreList(@NonNull final MoreItemsLoader<TItem, TMoreReference, TLoadedItems> headItemsLoader,
+                                        @NonNull final MoreItemsLoader<TItem, TMoreReference, TLoadedItems> tailItemsLoader) {
+        super();
+        head = new Side(headItemsLoader, true);
+        tail = new Side(tailItemsLoader, false);
+    }
+
+    @NonNull
+    @Override
+    public Observable<CollectionChanges<TItem>> observeChanges() {
+        return innerList.observeChanges();
+    }
+
+    @Override
+    protected void notifyAboutChanges(@NonNull final List<TItem> insertedItems,
+                                      @NonNull final List<TItem> removedItems,
+                                      @NonNull final Collection<Change> changes) {
+        Lc.assertion("Illegal operation. Modify getInnerList()");
+    }
+
+    /**
+     * Returns {@link ObservableList} of already loaded items so you can modify it.
+     *
+     * @return {@link ObservableList} of already loaded items.
+     */
+    @NonNull
+    protected ObservableList<TItem> getInnerList() {
+        return innerList;
+    }
+
+    /**
+     * Returns {@link Observable} that is loading next part of items at head of collection.
+     * Loaded items are inserted at position 0. Loading is shared between all subscribers.
+     *
+     * @return {@link Observable} that is loading items.
+     */
+    @NonNull
+    public Observable<TLoadedItems> loadMoreHeadItems() {
+        return head.loadingMoreObservable;
+    }
+
+    /**
+     * Returns {@link Observable} that is loading next part of items at tail of collection.
+     * Loaded items are added at the end. Loading is shared between all subscribers.
+     *
+     * @return {@link Observable} that is loading items.
+     */
+    @NonNull
+    public Observable<TLoadedItems> loadMoreTailItems() {
+        return tail.loadingMoreObservable;
+    }
+
+    /**
+     * Returns if there are more items to load at head of collection.
+     *
+     * @return True if there are more items to load.
+     */
+    public boolean hasMoreHeadItems() {
+        return head.moreItemsCount.getValue() != 0;
+    }
+
+    /**
+     * Returns if there are more items to load at tail of collection.
+     *
+     * @return True if there are more items to load.
+     */
+    public boolean hasMoreTailItems() {
+        return tail.moreItemsCount.getValue() != 0;
+    }
+
+    /**
+     * Returns {@link Observable} which is providing status of if is there are more items to load at head of collection or not.
+     *
+     * @return {@link Observable} of more items availability status.
+     */
+    @NonNull
+    public Observable<Boolean> observeHasMoreHeadItems() {
+        return head.moreItemsCount.map(count -> count != 0).distinctUntilChanged();
+    }
+
+    /**
+     * Returns {@link Observable} which is providing status of if is there are more items to load at tail of collection or not.
+     *
+     * @return {@link Observable} of more items availability status.
+     */
+    @NonNull
+    public Observable<Boolean> observeHasMoreTailItems() {
+        return tail.moreItemsCount.map(count -> count != 0).distinctUntilChanged();
+    }
+
+    @Nullable
+    public TMoreReference getHeadReference() {
+        return head.moreItemsReference;
+    }
+
+    @Nullable
+    public TMoreReference getTailReference() {
+        return tail.moreItemsReference;
+    }
+
+    @Override
+    public int size() {
+        return innerList.size();
+    }
+
+    @NonNull
+    @Override
+    public TItem get(final int position) {
+        return innerList.get(position);
+    }
+
+    @NonNull
+    @Override
+    public Collection<TItem> getItems() {
+        return innerList.getItems();
+    }
+
+    /**
+     * Remove all loaded items and resets state of both head and tail.
+     */
+    public void reset() {
+        synchronized (this) {
+            innerList.clear();
+            head.reset(null, LoadedItems.UNKNOWN_ITEMS_COUNT);
+            tail.reset(null, LoadedItems.UNKNOWN_ITEMS_COUNT);
+        }
+    }
+
+    /**
+     * Remove all loaded items and sets anchor items. Head and tail are loading from anchor by references.
+     *
+     * @param anchorItems   Initial items. It's reference and count of more items are used for tail;
+     * @param headReference Reference to load items before anchor items.
+     */
+    public void reset(@NonNull final TLoadedItems anchorItems, @Nullable final TMoreReference headReference) {
+        synchronized (this) {
+            innerList.set(anchorItems.getItems());
+            head.reset(headReference, LoadedItems.UNKNOWN_ITEMS_COUNT);
+            tail.reset(anchorItems.getReference(), anchorItems.getMoreItemsCount());
+        }
+    }
+
+    /**
+     * Releases resources of collection (e.g. loading lanes). Loading is not possible after that:
+     * loadings in progress and new ones are failing with {@link java.util.concurrent.RejectedExecutionException}.
+     * Call it when collection is not needed anymore.
+     */
+    public void dispose() {
+        head.loaderLane.release();
+        tail.loaderLane.release();
+    }
+
+    /**
+     * Calls when any new items part loaded at head or tail.
+     *
+     * @param loadedItems Loaded items;
+     * @param atHead      True if items loaded at head of collection.
+     */
+    protected void onItemsLoaded(@NonNull final TLoadedItems loadedItems, final boolean atHead) {
+        final List<TItem> items = new ArrayList<>(loadedItems.getItems());
+        // head and tail are loading on different lanes so adding should be synchronized
+        synchronized (this) {
+            innerList.addAll(atHead ? 0 : innerList.size(), items);
+        }
+    }
+
+    private class Side {
+
+        @NonNull
+        private final SerialLanesPool.Lane loaderLane = LoadingMoreList.LOADER_LANES_POOL.acquireLane();
+        @NonNull
+        private final Scheduler loaderScheduler = loaderLane.getScheduler();
+        @NonNull
+        private final BehaviorSubject<Integer> moreItemsCount = BehaviorSubject.create(LoadedItems.UNKNOWN_ITEMS_COUNT);
+        @NonNull
+        private final Observable<TLoadedItems> loadingMoreObservable;
+        private final boolean atHead;
+        @Nullable
+        private TMoreReference moreItemsReference;
+        private int loadedItemsCount;
+
+        public Side(@NonNull final MoreItemsLoader<TItem, TMoreReference, TLoadedItems> moreItemsLoader, final boolean atHead) {
+            this.atHead = atHead;
+            this.loadingMoreObservable = Observable
+                    .switchOnNext(Observable
+                            .fromCallable(() -> {
+                                final MoreLoadRequest<TMoreReference> loadRequest = createActualRequest();
+                                return moreItemsLoader.load(loadRequest)
+                                        .subscribeOn(Schedulers.io())
+                                        .observeOn(loaderScheduler)
+                                        .single()
+                                        .doOnNext(loadedItems -> {
+                                            if (!createActualRequest().equals(loadRequest)) {
+                                                throw OnErrorThrowable.from(new LoadingMoreList.RequestChangedDuringLoadingException());
+                                            }
+                                            onLoaded(loadedItems);
+                                        });
+                            })
+                            .subscribeOn(loaderScheduler))
+                    .retry((number, throwable) -> number <= RETRY_LOADING_AFTER_CHANGE_COUNT
+                            && throwable instanceof LoadingMoreList.RequestChangedDuringLoadingException)
+                    .doOnError(throwable -> {
+                        if (throwable instanceof IllegalArgumentException || throwable instanceof NoSuchElementException) {
+                            Lc.assertion(new ShouldNotHappenException("Updates during loading not supported."
+                                    + " MoreItemsLoader should emit only one result.", throwable));
+                        }
+                    })
+                    .compose(loaderLane.failOnRelease())
+                    .replay(1)
+                    .refCount();
+        }
+
+        @NonNull
+        private MoreLoadRequest<TMoreReference> createActualRequest() {
+            synchronized (BidirectionalLoadingMoreList.this) {
+                return new MoreLoadRequest<>(moreItemsReference, loadedItemsCount);
+            }
+        }
+
+        private void onLoaded(@NonNull final TLoadedItems loadedItems) {
+            synchronized (BidirectionalLoadingMoreList.this) {
+                onItemsLoaded(loadedItems, atHead);
+                loadedItemsCount += loadedItems.getItems().size();
+                moreItemsReference = loadedItems.getReference();
+            }
+            moreItemsCount.onNext(loadedItems.getMoreItemsCount());
+        }
+
+        private void reset(@Nullable final TMoreReference moreItemsReference, final int moreItemsCount) {
+            this.moreItemsReference = moreItemsReference;
+            this.loadedItemsCount = 0;
+            this.moreItemsCount.onNext(moreItemsCount);
+        }
+
+    }
+
+}
@@ -22,22 +22,35 @@ package ru.touchin.roboswag.core.observables.collections.loadable;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.concurrent.Executors;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import ru.touchin.roboswag.core.log.Lc;
+import ru.touchin.roboswag.core.observables.SerialLanesPool;
 import ru.touchin.roboswag.core.observables.collections.ObservableCollection;
 import ru.touchin.roboswag.core.observables.collections.ObservableList;
 import ru.touchin.roboswag.core.observables.collections.changes.Change;
 import ru.touchin.roboswag.core.observables.collections.changes.CollectionChanges;
+import ru.touchin.roboswag.core.observables.storable.Store;
+import ru.touchin.roboswag.core.utils.ObjectUtils;
 import ru.touchin.roboswag.core.utils.ShouldNotHappenException;
+import rx.Completable;
 import rx.Observable;
 import rx.Scheduler;
+import rx.Single;
+import rx.Subscription;
 import rx.exceptions.OnErrorThrowable;
+import rx.functions.Actions;
 import rx.functions.Func0;
 import rx.functions.Func1;
 import rx.schedulers.Schedulers;
@@ -49,6 +62,7 @@ import rx.subjects.BehaviorSubject;
  * To use this collection {@link MoreItemsLoader} should be created.
  * {@link MoreItemsLoader} is an object to load next block of items by info from previous loaded block (last loaded item/reference etc.).
  * Use {@link #loadItem(int)} and {@link #loadRange(int, int)} to load items asynchronously.
+ * If loader is {@link StreamingMoreItemsLoader} then items of page are added by chunks as soon as they are loaded.
  *
  * @param <TItem>          Type of collection's items;
  * @param <TMoreReference> Type of reference object to help rightly loading next block of items;
@@ -58,12 +72,20 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
         extends ObservableCollection<TItem> {
 
     private static final int RETRY_LOADING_AFTER_CHANGE_COUNT = 5;
+    private static final int LOADER_THREADS_COUNT = 2;
+
+    // all lists are loading on few shared threads but every list is loading serially on it's own lane
+    static final SerialLanesPool LOADER_LANES_POOL = new SerialLanesPool("LoadingMoreList", LOADER_THREADS_COUNT);
+
+    private static final Random SNAPSHOT_IDS_RANDOM = new Random();
 
     private static final LoadedItemsFilter<?> DUPLICATES_REMOVER = (collectionObject, loadedItemsObject) ->
             collectionObject.equals(loadedItemsObject) ? FilterAction.REMOVE_FROM_LOADED_ITEMS : FilterAction.DO_NOTHING;
 
     @NonNull
-    private final Scheduler loaderScheduler = Schedulers.from(Executors.newSingleThreadExecutor());
+    private final SerialLanesPool.Lane loaderLane = LOADER_LANES_POOL.acquireLane();
+    @NonNull
+    private final Scheduler loaderScheduler = loaderLane.getScheduler();
     @NonNull
     private Observable<TLoadedItems> loadingMoreObservable;
     @NonNull
@@ -73,7 +95,25 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
     @Nullable
     private LoadedItemsFilter<TItem> loadedItemsFilter;
     @Nullable
+    private Map<Object, List<Integer>> loadedItemsIndex;
+    private int indexedChangesCount;
+    @Nullable
     private TMoreReference moreItemsReference;
+    private int prefetchDistance;
+    @Nullable
+    private Subscription prefetchSubscription;
+    @NonNull
+    private final AtomicLong loadedItemHitsCount = new AtomicLong();
+    @NonNull
+    private final AtomicLong loadingWaitsCount = new AtomicLong();
+    // state of last saved snapshot; it is changing only on loader scheduler
+    @Nullable
+    private volatile String snapshotKey;
+    private long snapshotId;
+    private int snapshotPartsCount;
+    private int snapshotItemsCount;
+    // changes count of inner list while saved items are still actual; only adding of items to the end keeps them actual
+    private int snapshotActualChangesCount = -1;
 
     public LoadingMoreList(@NonNull final MoreItemsLoader<TItem, TMoreReference, TLoadedItems> moreMoreItemsLoader) {
         this(moreMoreItemsLoader, null);
@@ -84,16 +124,10 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
     public LoadingMoreList(@NonNull final MoreItemsLoader<TItem, TMoreReference, TLoadedItems> moreMoreItemsLoader,
                            @Nullable final LoadedItems<TItem, TMoreReference> initialItems) {
         super();
-        this.loadingMoreObservable = Observable
-                .switchOnNext(Observable.fromCallable(() -> createLoadRequestBasedObservable(this::createActualRequest, moreMoreItemsLoader::load)))
-                .single()
-                .doOnError(throwable -> {
-                    if (throwable instanceof IllegalArgumentException || throwable instanceof NoSuchElementException) {
-                        Lc.assertion(new ShouldNotHappenException("Updates during loading not supported."
-                                + " MoreItemsLoader should emit only one result.", throwable));
-                    }
-                })
-                .doOnNext(loadedItems -> onItemsLoaded(loadedItems, size(), false))
+        this.loadingMoreObservable = (moreMoreItemsLoader instanceof StreamingMoreItemsLoader
+                ? createStreamingLoadingObservable(moreMoreItemsLoader)
+                : createSingleLoadingObservable(moreMoreItemsLoader))
+                .compose(loaderLane.failOnRelease())
                 .replay(1)
                 .refCount();
 
@@ -112,6 +146,55 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
         return new MoreLoadRequest<>(moreItemsReference, Math.max(0, size()));
     }
 
+    @NonNull
+    private Observable<TLoadedItems> createSingleLoadingObservable(
+            @NonNull final MoreItemsLoader<TItem, TMoreReference, TLoadedItems> moreItemsLoader) {
+        return Observable
+                .switchOnNext(Observable.fromCallable(() -> createLoadRequestBasedObservable(this::createActualRequest, moreItemsLoader::load)))
+                .single()
+                .doOnError(throwable -> {
+                    if (throwable instanceof IllegalArgumentException || throwable instanceof NoSuchElementException) {
+                        Lc.assertion(new ShouldNotHappenException("Updates during loading not supported."
+                                + " MoreItemsLoader should emit only one result.", throwable));
+                    }
+                })
+                .doOnNext(loadedItems -> onItemsLoaded(loadedItems, size(), false));
+    }
+
+    @NonNull
+    private Observable<TLoadedItems> createStreamingLoadingObservable(
+            @NonNull final MoreItemsLoader<TItem, TMoreReference, TLoadedItems> moreItemsLoader) {
+        return Observable
+                .switchOnNext(Observable
+                        .fromCallable(() -> {
+                            final MoreLoadRequest<TMoreReference> loadRequest = createActualRequest();
+                            final AtomicInteger expectedSize = new AtomicInteger(loadRequest.getNextPosition());
+                            final AtomicReference<TMoreReference> expectedReference = new AtomicReference<>(loadRequest.getReference());
+                            return moreItemsLoader.load(loadRequest)
+                                    .subscribeOn(Schedulers.io())
+                                    .observeOn(loaderScheduler)
+                                    .doOnNext(chunk -> {
+                                        // state could be changed only by previous chunks of this loading
+                                        if (size() != expectedSize.get() || !ObjectUtils.equals(moreItemsReference, expectedReference.get())) {
+                                            throw OnErrorThrowable.from(new RequestChangedDuringLoadingException());
+                                        }
+                                        // reference is moving with each chunk so loading interrupted by error or retry continues after added items
+                                        onItemsLoaded(chunk, size(), false);
+                                        expectedSize.set(size());
+                                        expectedReference.set(moreItemsReference);
+                                    })
+                                    .last();
+                        })
+                        .subscribeOn(loaderScheduler))
+                .retry((number, throwable) ->
+                        number <= RETRY_LOADING_AFTER_CHANGE_COUNT && throwable instanceof RequestChangedDuringLoadingException)
+                .doOnError(throwable -> {
+                    if (throwable instanceof NoSuchElementException) {
+                        Lc.assertion(new ShouldNotHappenException("StreamingMoreItemsLoader should emit at least one chunk.", throwable));
+                    }
+                });
+    }
+
     @NonNull
     protected <T, TRequest> Observable<T> createLoadRequestBasedObservable(@NonNull final Func0<TRequest> requestCreator,
                                                                            @NonNull final Func1<TRequest, Observable<T>> observableCreator) {
@@ -188,6 +271,8 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
 
     /**
      * Sets if duplicates (compared by {@link #equals(Object)}) should be removed from loaded part of items right after loading.
+     * Each loaded item is compared with all items of collection so use {@link #setLoadedItemsFilter(Func1, FilterAction)}
+     * with {@link FilterAction#REMOVE_FROM_LOADED_ITEMS} for long lists if items have consistent {@link #hashCode()}.
      *
      * @param removeDuplicates True if duplicates should be removed.
      */
@@ -199,6 +284,7 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
             return;
         }
         this.loadedItemsFilter = removeDuplicates ? (LoadedItemsFilter<TItem>) DUPLICATES_REMOVER : null;
+        this.loadedItemsIndex = null;
     }
 
     /**
@@ -208,6 +294,84 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
      */
     public void setLoadedItemsFilter(@Nullable final LoadedItemsFilter<TItem> loadedItemsFilter) {
         this.loadedItemsFilter = loadedItemsFilter;
+        this.loadedItemsIndex = null;
+    }
+
+    /**
+     * Sets filter which will do specific action with items that have same keys in already loaded part and in new loaded items.
+     * Items are matched by hash index of keys so it is much faster than {@link #setLoadedItemsFilter(LoadedItemsFilter)} on long lists.
+     *
+     * @param keyExtractor Function to get key of item. Keys should implement {@link #equals(Object)} and {@link #hashCode()};
+     * @param filterAction Action to do with items that have same keys.
+     */
+    public void setLoadedItemsFilter(@NonNull final Func1<TItem, ?> keyExtractor, @NonNull final FilterAction filterAction) {
+        setLoadedItemsFilter(new KeyedLoadedItemsFilter<TItem>() {
+
+            @Nullable
+            @Override
+            public Object getKey(@NonNull final TItem item) {
+                return keyExtractor.call(item);
+            }
+
+            @NonNull
+            @Override
+            public FilterAction decideFilterAction(@NonNull final TItem collectionObject, @NonNull final TItem loadedItemsObject) {
+                return filterAction;
+            }
+
+        });
+    }
+
+    /**
+     * Sets distance from end of loaded items to start loading of next part of items in background.
+     * If item within this distance from the end is requested by {@link #loadItem(int)} or bound by {@link #onItemBound(int)}
+     * then next part of items will start loading so user won't wait for it while scrolling.
+     *
+     * @param prefetchDistance Count of items from the end of loaded items. 0 means that prefetch is disabled.
+     */
+    public void setPrefetchDistance(final int prefetchDistance) {
+        this.prefetchDistance = prefetchDistance;
+    }
+
+    /**
+     * Notifies that item at position is shown (e.g. bound to view) so next part of items could be prefetched.
+     *
+     * @param position Position of shown item.
+     */
+    public void onItemBound(final int position) {
+        prefetchIfNeeded(position);
+    }
+
+    /**
+     * Returns count of {@link #loadItem(int)} and {@link #loadRange(int, int)} calls that have been returned already loaded items without waiting.
+     *
+     * @return Count of hits.
+     */
+    public long getLoadedItemHitsCount() {
+        return loadedItemHitsCount.get();
+    }
+
+    /**
+     * Returns count of {@link #loadItem(int)} and {@link #loadRange(int, int)} calls that have been waiting for loading of next part of items.
+     *
+     * @return Count of waits.
+     */
+    public long getLoadingWaitsCount() {
+        return loadingWaitsCount.get();
+    }
+
+    private void prefetchIfNeeded(final int position) {
+        if (prefetchDistance <= 0 || position < size() - prefetchDistance || moreItemsCount.getValue() == 0) {
+            return;
+        }
+        synchronized (this) {
+            if (prefetchSubscription != null && !prefetchSubscription.isUnsubscribed()) {
+                // loading is already in progress so it will be reused by loadingMoreObservable
+                return;
+            }
+            prefetchSubscription = loadingMoreObservable
+                    .subscribe(Actions.empty(), throwable -> Lc.w(throwable, "Exception during prefetch of items"));
+        }
     }
 
     private void innerOnItemsLoaded(@NonNull final LoadedItems<TItem, TMoreReference> loadedItems, final int insertPosition, final boolean reset) {
@@ -220,10 +384,7 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
             }
             innerList.set(items);
         } else {
-            if (this.loadedItemsFilter != null) {
-                filterList(items, this.loadedItemsFilter);
-            }
-            innerList.addAll(insertPosition, items);
+            addLoadedItems(items, insertPosition);
         }
         if (lastPage) {
             moreItemsReference = loadedItems.getReference();
@@ -231,8 +392,25 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
         }
     }
 
+    private void addLoadedItems(@NonNull final List<TItem> items, final int requestedInsertPosition) {
+        final boolean addingToEnd = requestedInsertPosition >= innerList.size();
+        if (this.loadedItemsFilter instanceof KeyedLoadedItemsFilter) {
+            filterListByKeys(items, (KeyedLoadedItemsFilter<TItem>) this.loadedItemsFilter);
+        } else if (this.loadedItemsFilter != null) {
+            filterList(items, this.loadedItemsFilter);
+        }
+        // filter could remove items from collection so position to insert could be out of it's bounds now
+        final int insertPosition = addingToEnd ? innerList.size() : Math.min(requestedInsertPosition, innerList.size());
+        final int changesCountBeforeAdding = innerList.getChangesCount();
+        innerList.addAll(insertPosition, items);
+        addToLoadedItemsIndex(items, insertPosition, addingToEnd, changesCountBeforeAdding);
+        if (addingToEnd && snapshotActualChangesCount == changesCountBeforeAdding) {
+            snapshotActualChangesCount = innerList.getChangesCount();
+        }
+    }
+
     /**
-     * Calls when any new items part loaded.
+     * Calls when any new items part loaded. For {@link StreamingMoreItemsLoader} it is called for each chunk right after emitting.
      *
      * @param loadedItems    Loaded items;
      * @param insertPosition Position to insert loaded items;
@@ -262,6 +440,83 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
         }
     }
 
+    private void filterListByKeys(@NonNull final List<TItem> items, @NonNull final KeyedLoadedItemsFilter<TItem> loadedItemsFilter) {
+        final Map<Object, List<Integer>> index = getLoadedItemsIndex(loadedItemsFilter);
+        // removing from collection is postponed to keep indexed positions actual while filtering
+        final List<Integer> positionsToRemove = new ArrayList<>();
+        for (int i = items.size() - 1; i >= 0; i--) {
+            final List<Integer> sameKeyPositions = index.get(loadedItemsFilter.getKey(items.get(i)));
+            if (sameKeyPositions == null) {
+                continue;
+            }
+            for (int j = sameKeyPositions.size() - 1; j >= 0; j--) {
+                final int position = sameKeyPositions.get(j);
+                final FilterAction filterAction = loadedItemsFilter.decideFilterAction(innerList.get(position), items.get(i));
+                if (filterAction == FilterAction.REMOVE_FROM_LOADED_ITEMS) {
+                    items.remove(i);
+                    break;
+                }
+                if (filterAction == FilterAction.REMOVE_FROM_COLLECTION) {
+                    positionsToRemove.add(position);
+                    sameKeyPositions.remove(j);
+                }
+                if (filterAction == FilterAction.REPLACE_SOURCE_ITEM_WITH_LOADED) {
+                    innerList.update(position, items.remove(i));
+                    break;
+                }
+            }
+        }
+        indexedChangesCount = innerList.getChangesCount();
+        if (!positionsToRemove.isEmpty()) {
+            Collections.sort(positionsToRemove, Collections.reverseOrder());
+            for (final int position : positionsToRemove) {
+                innerList.remove(position);
+            }
+            // positions of items after removed ones have shifted so index should be rebuilt
+            loadedItemsIndex = null;
+        }
+    }
+
+    @NonNull
+    private Map<Object, List<Integer>> getLoadedItemsIndex(@NonNull final KeyedLoadedItemsFilter<TItem> loadedItemsFilter) {
+        if (loadedItemsIndex == null || indexedChangesCount != innerList.getChangesCount()) {
+            // inner list have changed not by loading so index should be rebuilt
+            loadedItemsIndex = new HashMap<>();
+            int position = 0;
+            for (final TItem item : innerList.getItems()) {
+                addToIndex(loadedItemsIndex, loadedItemsFilter.getKey(item), position++);
+            }
+            indexedChangesCount = innerList.getChangesCount();
+        }
+        return loadedItemsIndex;
+    }
+
+    private void addToLoadedItemsIndex(@NonNull final List<TItem> items, final int insertPosition,
+                                       final boolean addedToEnd, final int changesCountBeforeAdding) {
+        if (loadedItemsIndex == null || !(loadedItemsFilter instanceof KeyedLoadedItemsFilter)) {
+            return;
+        }
+        if (!addedToEnd || indexedChangesCount != changesCountBeforeAdding) {
+            // positions of already indexed items have shifted or inner list have changed not by loading
+            loadedItemsIndex = null;
+            return;
+        }
+        int position = insertPosition;
+        for (final TItem item : items) {
+            addToIndex(loadedItemsIndex, ((KeyedLoadedItemsFilter<TItem>) loadedItemsFilter).getKey(item), position++);
+        }
+        indexedChangesCount = innerList.getChangesCount();
+    }
+
+    private void addToIndex(@NonNull final Map<Object, List<Integer>> index, @Nullable final Object key, final int position) {
+        List<Integer> sameKeyPositions = index.get(key);
+        if (sameKeyPositions == null) {
+            sameKeyPositions = new ArrayList<>(1);
+            index.put(key, sameKeyPositions);
+        }
+        sameKeyPositions.add(position);
+    }
+
     @Override
     public int size() {
         return innerList.size();
@@ -301,6 +556,7 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
         return Observable
                 .switchOnNext(Observable
                         .fromCallable(() -> {
+                            prefetchIfNeeded(position);
                             if (position < size()) {
                                 return Observable.just(get(position));
                             } else if (moreItemsCount.getValue() == 0) {
@@ -310,12 +566,24 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
                             }
                         })
                         .subscribeOn(loaderScheduler))
-                .retry((number, throwable) -> throwable instanceof NotLoadedYetException);
+                .retry((number, throwable) -> throwable instanceof NotLoadedYetException)
+                .compose(loaderLane.failOnRelease())
+                .doOnSubscribe(() -> countItemAccess(position));
+    }
+
+    private void countItemAccess(final int lastPosition) {
+        if (lastPosition < size()) {
+            loadedItemHitsCount.incrementAndGet();
+        } else if (moreItemsCount.getValue() != 0) {
+            loadingWaitsCount.incrementAndGet();
+        }
     }
 
     /**
      * Returns {@link Observable} which is loading item by range.
      * It will return collection of loaded items in onNext callback.
+     * Next parts of items are loading one by one until range is covered so there is only one subscription for whole range.
+     * If there are no more items to load then range will be cut to loaded items.
      *
      * @param first First position of item to load;
      * @param last  Last position of item to load;
@@ -323,14 +591,128 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
      */
     @NonNull
     public Observable<Collection<TItem>> loadRange(final int first, final int last) {
-        final List<Observable<TItem>> itemsRequests = new ArrayList<>();
-        for (int i = first; i <= last; i++) {
-            itemsRequests.add(loadItem(i));
+        return Observable
+                .switchOnNext(Observable
+                        .fromCallable(() -> {
+                            prefetchIfNeeded(last);
+                            if (last < size() || moreItemsCount.getValue() == 0) {
+                                return Observable.just(innerList.getItems(first, last + 1));
+                            }
+                            // loading parts one by one until range is covered or there is no more items
+                            return loadingMoreObservable.switchMap(ignored -> Observable.<Collection<TItem>>error(new NotLoadedYetException()));
+                        })
+                        .subscribeOn(loaderScheduler))
+                .retry((number, throwable) -> throwable instanceof NotLoadedYetException)
+                .compose(loaderLane.failOnRelease())
+                .doOnSubscribe(() -> countItemAccess(last));
+    }
+
+    /**
+     * Saves loaded items, reference and count of more items to store so collection could be restored by {@link #restoreSnapshot(Store, String)}
+     * e.g. after process death. Snapshot is saved by parts in append-only way: if items have only been added to the end
+     * since previous saving with same key then only new items are saved as next part, otherwise whole snapshot is saved again.
+     * So call it after each loaded part of items to write only that part.
+     *
+     * @param store Store to save snapshot parts to;
+     * @param key   Key of snapshot. Parts are saved by keys made from it;
+     * @return {@link Completable} that is saving snapshot.
+     */
+    @NonNull
+    public Completable saveSnapshot(@NonNull final Store<String, SnapshotPart<TItem, TMoreReference>> store, @NonNull final String key) {
+        return Completable
+                .defer(() -> {
+                    final List<TItem> items = new ArrayList<>(innerList.getItems());
+                    final boolean appending = key.equals(snapshotKey)
+                            && snapshotActualChangesCount == innerList.getChangesCount()
+                            && snapshotItemsCount <= items.size();
+                    final int partIndex = appending ? snapshotPartsCount : 0;
+                    final SnapshotPart<TItem, TMoreReference> part = new SnapshotPart<>(appending ? snapshotId : SNAPSHOT_IDS_RANDOM.nextLong(),
+                            appending ? items.subList(snapshotItemsCount, items.size()) : items,
+                            moreItemsReference, moreItemsCount.getValue());
+                    snapshotKey = key;
+                    snapshotId = part.snapshotId;
+                    snapshotPartsCount = partIndex + 1;
+                    snapshotItemsCount = items.size();
+                    snapshotActualChangesCount = innerList.getChangesCount();
+                    return store.storeObject(SnapshotPart.class, getSnapshotPartKey(key, partIndex), part)
+                            // next saving should rewrite whole snapshot as we don't know which parts are saved
+                            .doOnError(throwable -> snapshotKey = null);
+                })
+                .subscribeOn(loaderScheduler)
+                .toObservable()
+                .compose(loaderLane.failOnRelease())
+                .toCompletable();
+    }
+
+    /**
+     * Restores collection from snapshot saved by {@link #saveSnapshot(Store, String)}.
+     * Collection is reset with restored items, reference and count of more items in one step like {@link #reset(LoadedItems)}.
+     *
+     * @param store Store to load snapshot parts from;
+     * @param key   Key of snapshot;
+     * @return {@link Single} that is emitting true if snapshot have been found and restored.
+     */
+    @NonNull
+    public Single<Boolean> restoreSnapshot(@NonNull final Store<String, SnapshotPart<TItem, TMoreReference>> store, @NonNull final String key) {
+        return loadSnapshotParts(store, key, new ArrayList<>())
+                .observeOn(loaderScheduler)
+                .map(parts -> {
+                    if (parts.isEmpty()) {
+                        return false;
+                    }
+                    final List<TItem> items = new ArrayList<>();
+                    for (final SnapshotPart<TItem, TMoreReference> part : parts) {
+                        items.addAll(part.getItems());
+                    }
+                    final SnapshotPart<TItem, TMoreReference> lastPart = parts.get(parts.size() - 1);
+                    innerOnItemsLoaded(new SnapshotPart<>(lastPart.snapshotId, items, lastPart.getReference(), lastPart.getMoreItemsCount()), 0, true);
+                    snapshotKey = key;
+                    snapshotId = lastPart.snapshotId;
+                    snapshotPartsCount = parts.size();
+                    snapshotItemsCount = items.size();
+                    snapshotActualChangesCount = innerList.getChangesCount();
+                    return true;
+                })
+                .toObservable()
+                .compose(loaderLane.failOnRelease())
+                .toSingle();
+    }
+
+    @NonNull
+    private Single<List<SnapshotPart<TItem, TMoreReference>>> loadSnapshotParts(
+            @NonNull final Store<String, SnapshotPart<TItem, TMoreReference>> store,
+            @NonNull final String key,
+            @NonNull final List<SnapshotPart<TItem, TMoreReference>> loadedParts) {
+        return store.loadObject(SnapshotPart.class, getSnapshotPartKey(key, loadedParts.size()))
+                .flatMap(optionalPart -> {
+                    final SnapshotPart<TItem, TMoreReference> part = optionalPart.get();
+                    // parts of older snapshots could stay in store after rewriting so they are filtered by id
+                    if (part == null || (!loadedParts.isEmpty() && part.snapshotId != loadedParts.get(0).snapshotId)) {
+                        return Single.just(loadedParts);
+                    }
+                    loadedParts.add(part);
+                    return loadSnapshotParts(store, key, loadedParts);
+                });
+    }
+
+    @NonNull
+    private static String getSnapshotPartKey(@NonNull final String key, final int partIndex) {
+        return key + '#' + partIndex;
+    }
+
+    /**
+     * Releases resources of collection (e.g. loading lane). Loading is not possible after that:
+     * loadings in progress and new ones are failing with {@link java.util.concurrent.RejectedExecutionException}.
+     * Call it when collection is not needed anymore.
+     */
+    public void dispose() {
+        synchronized (this) {
+            if (prefetchSubscription != null) {
+                prefetchSubscription.unsubscribe();
+                prefetchSubscription = null;
+            }
         }
-        return Observable.concatEager(itemsRequests)
-                .filter(loadedItem -> loadedItem != null)
-                .toList()
-                .map(Collections::unmodifiableCollection);
+        loaderLane.release();
     }
 
     /**
@@ -385,6 +767,81 @@ public class LoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedI
 
     }
 
+    /**
+     * {@link LoadedItemsFilter} which is deciding action only for items with same keys.
+     * Items are matched by hash index of keys so merging of new loaded part costs proportionally to it's size, not to size of collection.
+     *
+     * @param <TItem> Type of collection's items.
+     */
+    public interface KeyedLoadedItemsFilter<TItem> extends LoadedItemsFilter<TItem> {
+
+        /**
+         * Returns key of item. Items with same keys are passed to {@link #decideFilterAction(Object, Object)}.
+         *
+         * @param item Item to get key from;
+         * @return Key of item.
+         */
+        @Nullable
+        Object getKey(@NonNull TItem item);
+
+    }
+
+    /**
+     * Part of snapshot of collection saved by {@link #saveSnapshot(Store, String)}.
+     * Items and reference should be {@link Serializable} if store is serializing parts.
+     *
+     * @param <TItem>          Type of collection's items;
+     * @param <TMoreReference> Type of reference object to load next block of items.
+     */
+    public static class SnapshotPart<TItem, TMoreReference> implements LoadedItems<TItem, TMoreReference>, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long snapshotId;
+        @NonNull
+        private final ArrayList<TItem> items;
+        @Nullable
+        private final TMoreReference reference;
+        private final int moreItemsCount;
+
+        public SnapshotPart(final long snapshotId,
+                            @NonNull final Collection<TItem> items,
+                            @Nullable final TMoreReference reference,
+                            final int moreItemsCount) {
+            this.snapshotId = snapshotId;
+            this.items = new ArrayList<>(items);
+            this.reference = reference;
+            this.moreItemsCount = moreItemsCount;
+        }
+
+        /**
+         * Returns id of snapshot which part is belonging to.
+         *
+         * @return Id of snapshot.
+         */
+        public long getSnapshotId() {
+            return snapshotId;
+        }
+
+        @Override
+        public int getMoreItemsCount() {
+            return moreItemsCount;
+        }
+
+        @NonNull
+        @Override
+        public Collection<TItem> getItems() {
+            return Collections.unmodifiableCollection(items);
+        }
+
+        @Nullable
+        @Override
+        public TMoreReference getReference() {
+            return reference;
+        }
+
+    }
+
     /**
      * Helper exception happens if {@link #loadItem(int)} called with big index and latest loading items part still not reached such item.
      */
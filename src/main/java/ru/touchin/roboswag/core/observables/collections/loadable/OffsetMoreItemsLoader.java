@@ -0,0 +1,41 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections.loadable;
+
+/**
+ * {@link MoreItemsLoader} which is loading part of items only by {@link MoreLoadRequest#getNextPosition()} (limit-offset mechanism)
+ * so any part could be loaded without loading of previous parts. Reference of request is not needed by such loader.
+ * {@link PagedLoadingMoreList} is loading several parts of items at same time if loader implements it.
+ *
+ * @param <TItem>          Type of items to be loaded;
+ * @param <TMoreReference> Type of reference to be used to load next part of items;
+ * @param <TLoadedItems>   Type of loaded items part.
+ */
+public interface OffsetMoreItemsLoader<TItem, TMoreReference, TLoadedItems extends LoadedItems<TItem, TMoreReference>>
+        extends MoreItemsLoader<TItem, TMoreReference, TLoadedItems> {
+
+    /**
+     * Returns count of items in each loaded part. Only last part could contain less items.
+     *
+     * @return Count of items.
+     */
+    int getPageSize();
+
+}
@@ -0,0 +1,679 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections.loadable;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import ru.touchin.roboswag.core.log.Lc;
+import ru.touchin.roboswag.core.observables.SerialLanesPool;
+import ru.touchin.roboswag.core.observables.collections.ObservableCollection;
+import ru.touchin.roboswag.core.observables.collections.changes.Change;
+import rx.Observable;
+import rx.Scheduler;
+import rx.exceptions.OnErrorThrowable;
+import rx.functions.Actions;
+import rx.schedulers.Schedulers;
+import rx.subjects.BehaviorSubject;
+import rx.subjects.PublishSubject;
+
+/**
+ * {@link ObservableCollection} which is loading items page by page like {@link LoadingMoreList} but keeps only limited count of pages in memory.
+ * Pages which were not accessed for long time (least recently used) are evicted: their items are replaced with null placeholders
+ * so {@link #size()} stays stable. Evicted page is loaded again by {@link MoreItemsLoader} with same {@link MoreLoadRequest}
+ * that was used to load it first time when it's item is requested by {@link #loadItem(int)}.
+ * Use it for infinite feeds to keep memory bounded on long sessions.
+ * If loader is {@link OffsetMoreItemsLoader} then several next pages are loading at same time and are added in order of positions.
+ * Also item far from loaded ones is loading only with it's own page without pages between: such page is shown in place of placeholders
+ * and is returned by {@link #get(int)} until pages before it are loaded.
+ *
+ * @param <TItem>          Type of collection's items;
+ * @param <TMoreReference> Type of reference object to help rightly loading next block of items;
+ * @param <TLoadedItems>   Type of loading block of items.
+ */
+public class PagedLoadingMoreList<TItem, TMoreReference, TLoadedItems extends LoadedItems<TItem, TMoreReference>>
+        extends ObservableCollection<TItem> {
+
+    public static final int DEFAULT_MAX_LOADED_PAGES_COUNT = 10;
+    public static final int DEFAULT_MAX_CONCURRENT_LOADS_COUNT = 3;
+
+    private static final int RETRY_LOADING_AFTER_CHANGE_COUNT = 5;
+
+    @NonNull
+    private final MoreItemsLoader<TItem, TMoreReference, TLoadedItems> moreItemsLoader;
+    @NonNull
+    private final SerialLanesPool.Lane loaderLane = LoadingMoreList.LOADER_LANES_POOL.acquireLane();
+    @NonNull
+    private final Scheduler loaderScheduler = loaderLane.getScheduler();
+    @NonNull
+    private final Observable<TLoadedItems> loadingMoreObservable;
+    @NonNull
+    private final BehaviorSubject<Integer> moreItemsCount = BehaviorSubject.create(LoadedItems.UNKNOWN_ITEMS_COUNT);
+    // pages are ordered by position and are covering [0, loadedSize) without gaps
+    @NonNull
+    private final List<Page<TItem, TMoreReference>> pages = new ArrayList<>();
+    @Nullable
+    private TMoreReference moreItemsReference;
+    private int loadedSize;
+    private boolean placeholdersEnabled;
+    private int placeholdersCount;
+    private int maxLoadedPagesCount = DEFAULT_MAX_LOADED_PAGES_COUNT;
+    private long accessNumber;
+    private int maxConcurrentLoadsCount = DEFAULT_MAX_CONCURRENT_LOADS_COUNT;
+    // loadings of pages of offset loader by offset; pages are loading at same time
+    // all offset loading fields are guarded by this
+    @NonNull
+    private final Map<Integer, Observable<TLoadedItems>> offsetPagesLoadings = new HashMap<>();
+    // pages of offset loader which have been loaded before previous pages by offset (e.g. page of far requested item)
+    @NonNull
+    private final TreeMap<Integer, PendingOffsetPage> pendingOffsetPages = new TreeMap<>();
+    private int resetsCount;
+    // emits on reset and dispose to stop offset pages loadings in progress
+    @NonNull
+    private final PublishSubject<Boolean> offsetPagesLoadingsCancelEvent = PublishSubject.create();
+
+    public PagedLoadingMoreList(@NonNull final MoreItemsLoader<TItem, TMoreReference, TLoadedItems> moreItemsLoader) {
+        super();
+        this.moreItemsLoader = moreItemsLoader;
+        this.loadingMoreObservable = Observable
+                .switchOnNext(Observable
+                        .fromCallable(() -> {
+                            final MoreLoadRequest<TMoreReference> loadRequest = createActualRequest();
+                            return loadPage(loadRequest)
+                                    .doOnNext(loadedItems -> {
+                                        if (!createActualRequest().equals(loadRequest)) {
+                                            throw OnErrorThrowable.from(new LoadingMoreList.RequestChangedDuringLoadingException());
+                                        }
+                                        onPageLoaded(loadRequest, loadedItems);
+                                    });
+                        })
+                        .subscribeOn(loaderScheduler))
+                .retry((number, throwable) -> number <= RETRY_LOADING_AFTER_CHANGE_COUNT
+                        && throwable instanceof LoadingMoreList.RequestChangedDuringLoadingException)
+                .compose(loaderLane.failOnRelease())
+                .replay(1)
+                .refCount();
+    }
+
+    @NonNull
+    private MoreLoadRequest<TMoreReference> createActualRequest() {
+        synchronized (this) {
+            return new MoreLoadRequest<>(moreItemsReference, loadedSize);
+        }
+    }
+
+    @NonNull
+    private Observable<TLoadedItems> loadPage(@NonNull final MoreLoadRequest<TMoreReference> loadRequest) {
+        return moreItemsLoader.load(loadRequest)
+                .subscribeOn(Schedulers.io())
+                .observeOn(loaderScheduler)
+                .single()
+                .doOnError(throwable -> {
+                    if (throwable instanceof IllegalArgumentException) {
+                        Lc.w(throwable, "MoreItemsLoader should emit only one result");
+                    }
+                });
+    }
+
+    private void onPageLoaded(@NonNull final MoreLoadRequest<TMoreReference> loadRequest, @NonNull final TLoadedItems loadedItems) {
+        synchronized (this) {
+            final List<TItem> items = new ArrayList<>(loadedItems.getItems());
+            final List<TItem> insertedItems = new ArrayList<>();
+            final List<TItem> removedItems = new ArrayList<>();
+            final List<Change> changes = new ArrayList<>();
+            moreItemsReference = loadedItems.getReference();
+            if (!items.isEmpty()) {
+                final Page<TItem, TMoreReference> page = new Page<>(loadRequest, loadedSize, items);
+                page.lastAccessNumber = ++accessNumber;
+                pages.add(page);
+                // new items are taking place of first placeholders
+                final int replacedPlaceholdersCount = Math.min(placeholdersCount, items.size());
+                addReplacingChanges(changes, insertedItems, removedItems, loadedSize, replacedPlaceholdersCount, items);
+                loadedSize += items.size();
+                placeholdersCount -= replacedPlaceholdersCount;
+            }
+            addPlaceholdersChanges(changes, insertedItems, removedItems, loadedItems.getMoreItemsCount());
+            notifyAboutChanges(insertedItems, removedItems, changes);
+            evictPages();
+        }
+        moreItemsCount.onNext(loadedItems.getMoreItemsCount());
+    }
+
+    @NonNull
+    private Observable<?> reloadPage(@NonNull final Page<TItem, TMoreReference> page) {
+        // should be called only on loader scheduler so reloading observable is shared between all requests of page
+        if (page.reloadingObservable == null) {
+            page.reloadingObservable = loadPage(page.loadRequest)
+                    .doOnNext(loadedItems -> onPageReloaded(page, loadedItems))
+                    .doOnTerminate(() -> page.reloadingObservable = null)
+                    .replay(1)
+                    .refCount();
+        }
+        return page.reloadingObservable;
+    }
+
+    private void onPageReloaded(@NonNull final Page<TItem, TMoreReference> page, @NonNull final TLoadedItems loadedItems) {
+        final boolean lastPage;
+        synchronized (this) {
+            final int pageIndex = pages.indexOf(page);
+            if (pageIndex < 0) {
+                // collection have been reset during reloading
+                return;
+            }
+            lastPage = pageIndex == pages.size() - 1;
+            final List<TItem> items = new ArrayList<>(loadedItems.getItems());
+            final List<TItem> insertedItems = new ArrayList<>();
+            final List<TItem> removedItems = new ArrayList<>();
+            final List<Change> changes = new ArrayList<>();
+            final int oldCount = page.count;
+            page.items = items;
+            page.count = items.size();
+            page.lastAccessNumber = ++accessNumber;
+            for (int i = pageIndex + 1; i < pages.size(); i++) {
+                pages.get(i).start += page.count - oldCount;
+            }
+            addReplacingChanges(changes, insertedItems, removedItems, page.start, oldCount, items);
+            loadedSize += page.count - oldCount;
+            if (lastPage) {
+                moreItemsReference = loadedItems.getReference();
+                addPlaceholdersChanges(changes, insertedItems, removedItems, loadedItems.getMoreItemsCount());
+            }
+            if (page.count == 0) {
+                pages.remove(pageIndex);
+            }
+            notifyAboutChanges(insertedItems, removedItems, changes);
+            evictPages();
+        }
+        if (lastPage) {
+            moreItemsCount.onNext(loadedItems.getMoreItemsCount());
+        }
+    }
+
+    // adds changes of replacing placeholders at position by items
+    private void addReplacingChanges(@NonNull final List<Change> changes,
+                                     @NonNull final List<TItem> insertedItems,
+                                     @NonNull final List<TItem> removedItems,
+                                     final int position,
+                                     final int placeholdersCount,
+                                     @NonNull final List<TItem> items) {
+        final int changedCount = Math.min(placeholdersCount, items.size());
+        if (changedCount > 0) {
+            changes.add(new Change.Changed(position, changedCount, null));
+        }
+        if (items.size() > placeholdersCount) {
+            changes.add(new Change.Inserted(position + placeholdersCount, items.size() - placeholdersCount));
+            insertedItems.addAll(items.subList(placeholdersCount, items.size()));
+        } else if (items.size() < placeholdersCount) {
+            changes.add(new Change.Removed(position + items.size(), placeholdersCount - items.size()));
+            removedItems.addAll(Collections.nCopies(placeholdersCount - items.size(), null));
+        }
+    }
+
+    // adds changes of inserting or removing placeholders after loaded items to match count of items that are not loaded yet
+    private void addPlaceholdersChanges(@NonNull final List<Change> changes,
+                                        @NonNull final List<TItem> insertedItems,
+                                        @NonNull final List<TItem> removedItems,
+                                        final int moreItemsCount) {
+        final int newPlaceholdersCount = placeholdersEnabled ? Math.max(0, moreItemsCount) : 0;
+        if (newPlaceholdersCount > placeholdersCount) {
+            changes.add(new Change.Inserted(loadedSize + placeholdersCount, newPlaceholdersCount - placeholdersCount));
+            insertedItems.addAll(Collections.nCopies(newPlaceholdersCount - placeholdersCount, null));
+        } else if (newPlaceholdersCount < placeholdersCount) {
+            changes.add(new Change.Removed(loadedSize + newPlaceholdersCount, placeholdersCount - newPlaceholdersCount));
+            removedItems.addAll(Collections.nCopies(placeholdersCount - newPlaceholdersCount, null));
+        }
+        placeholdersCount = newPlaceholdersCount;
+    }
+
+    @NonNull
+    private Observable<TItem> loadOffsetPages(@NonNull final OffsetMoreItemsLoader<TItem, TMoreReference, TLoadedItems> offsetLoader,
+                                              final int position) {
+        // should be called only on loader scheduler
+        final int pageSize = Math.max(1, offsetLoader.getPageSize());
+        final Integer knownMoreItemsCount = moreItemsCount.getValue();
+        synchronized (this) {
+            final int firstOffset = loadedSize;
+            if (knownMoreItemsCount != LoadedItems.UNKNOWN_ITEMS_COUNT && position >= firstOffset + knownMoreItemsCount) {
+                return Observable.just(null);
+            }
+            final int positionOffset = firstOffset + (position - firstOffset) / pageSize * pageSize;
+            if (positionOffset >= firstOffset + pageSize * maxConcurrentLoadsCount) {
+                // item is far from loaded ones so only it's page is loading and pages between are loading when they are requested
+                if (pendingOffsetPages.containsKey(positionOffset)) {
+                    // page have been loaded but it is not covering position so it is last page and there is no such item
+                    return Observable.just(null);
+                }
+                if (!offsetPagesLoadings.containsKey(positionOffset)) {
+                    startOffsetPageLoading(positionOffset);
+                }
+                return waitForLoading(offsetPagesLoadings.get(positionOffset));
+            }
+            int endPosition = Math.min(position + 1, firstOffset + pageSize * maxConcurrentLoadsCount);
+            if (knownMoreItemsCount != LoadedItems.UNKNOWN_ITEMS_COUNT) {
+                endPosition = Math.min(endPosition, firstOffset + knownMoreItemsCount);
+            }
+            for (int offset = firstOffset; offset < Math.max(endPosition, firstOffset + 1); offset += pageSize) {
+                if (!offsetPagesLoadings.containsKey(offset) && !pendingOffsetPages.containsKey(offset)) {
+                    startOffsetPageLoading(offset);
+                }
+            }
+            return waitForLoading(offsetPagesLoadings.get(firstOffset));
+        }
+    }
+
+    @NonNull
+    private Observable<TItem> waitForLoading(@Nullable final Observable<?> loading) {
+        // item is requested again after loading so it is taken from actual state of collection
+        // loading could be cancelled by reset without emitting page
+        return loading != null
+                ? loading.ignoreElements().map(ignored -> (TItem) null).concatWith(Observable.error(new LoadingMoreList.NotLoadedYetException()))
+                : Observable.error(new LoadingMoreList.NotLoadedYetException());
+    }
+
+    private void startOffsetPageLoading(final int offset) {
+        final int loadingResetsCount = resetsCount;
+        final Observable<TLoadedItems> pageLoading = loadPage(new MoreLoadRequest<>(null, offset))
+                .takeUntil(offsetPagesLoadingsCancelEvent)
+                .doOnNext(loadedItems -> {
+                    synchronized (this) {
+                        if (loadingResetsCount == resetsCount) {
+                            final PendingOffsetPage page = new PendingOffsetPage(loadedItems);
+                            page.lastAccessNumber = ++accessNumber;
+                            pendingOffsetPages.put(offset, page);
+                            addPendingOffsetPages();
+                            if (pendingOffsetPages.get(offset) == page) {
+                                notifyAboutPendingOffsetPageChange(offset, page);
+                                evictPages();
+                            }
+                        }
+                    }
+                })
+                .doOnTerminate(() -> {
+                    synchronized (this) {
+                        if (loadingResetsCount == resetsCount) {
+                            offsetPagesLoadings.remove(offset);
+                        }
+                    }
+                })
+                .cache();
+        offsetPagesLoadings.put(offset, pageLoading);
+        // subscribing right now so page is loading even if nobody is waiting for it
+        pageLoading.subscribe(Actions.empty(), Actions.empty());
+    }
+
+    private void addPendingOffsetPages() {
+        while (!pendingOffsetPages.isEmpty() && pendingOffsetPages.firstKey() <= loadedSize) {
+            final Map.Entry<Integer, PendingOffsetPage> firstPendingPage = pendingOffsetPages.pollFirstEntry();
+            // pages with offset less than expected are ignored as they are already loaded
+            if (firstPendingPage.getKey() == loadedSize) {
+                onPageLoaded(new MoreLoadRequest<>(null, loadedSize), firstPendingPage.getValue().loadedItems);
+            }
+        }
+    }
+
+    @Nullable
+    private Map.Entry<Integer, PendingOffsetPage> findPendingOffsetPage(final int position) {
+        final Map.Entry<Integer, PendingOffsetPage> entry = pendingOffsetPages.floorEntry(position);
+        return entry != null && position < entry.getKey() + entry.getValue().items.size() ? entry : null;
+    }
+
+    // pending page is shown only in place of placeholders so only that part of it is changing
+    private void notifyAboutPendingOffsetPageChange(final int offset, @NonNull final PendingOffsetPage page) {
+        final int start = Math.max(offset, loadedSize);
+        final int end = Math.min(offset + page.items.size(), loadedSize + placeholdersCount);
+        if (start < end) {
+            notifyAboutChange(Collections.emptyList(), Collections.emptyList(), new Change.Changed(start, end - start, null));
+        }
+    }
+
+    private void evictPages() {
+        int loadedPagesCount = getLoadedPagesCount();
+        while (loadedPagesCount > maxLoadedPagesCount) {
+            Page<TItem, TMoreReference> leastRecentlyUsedPage = null;
+            for (final Page<TItem, TMoreReference> page : pages) {
+                if (page.items != null
+                        && (leastRecentlyUsedPage == null || page.lastAccessNumber < leastRecentlyUsedPage.lastAccessNumber)) {
+                    leastRecentlyUsedPage = page;
+                }
+            }
+            Map.Entry<Integer, PendingOffsetPage> leastRecentlyUsedPendingPage = null;
+            for (final Map.Entry<Integer, PendingOffsetPage> entry : pendingOffsetPages.entrySet()) {
+                if (leastRecentlyUsedPendingPage == null
+                        || entry.getValue().lastAccessNumber < leastRecentlyUsedPendingPage.getValue().lastAccessNumber) {
+                    leastRecentlyUsedPendingPage = entry;
+                }
+            }
+            if (leastRecentlyUsedPendingPage != null && (leastRecentlyUsedPage == null
+                    || leastRecentlyUsedPendingPage.getValue().lastAccessNumber < leastRecentlyUsedPage.lastAccessNumber)) {
+                // pending page is just dropped as it could be loaded again by offset
+                pendingOffsetPages.remove(leastRecentlyUsedPendingPage.getKey());
+                notifyAboutPendingOffsetPageChange(leastRecentlyUsedPendingPage.getKey(), leastRecentlyUsedPendingPage.getValue());
+            } else if (leastRecentlyUsedPage != null) {
+                leastRecentlyUsedPage.items = null;
+                notifyAboutChange(Collections.emptyList(), Collections.emptyList(),
+                        new Change.Changed(leastRecentlyUsedPage.start, leastRecentlyUsedPage.count, null));
+            } else {
+                return;
+            }
+            loadedPagesCount--;
+        }
+    }
+
+    @Nullable
+    private Page<TItem, TMoreReference> findPage(final int position) {
+        if (position < 0 || position >= loadedSize) {
+            return null;
+        }
+        int low = 0;
+        int high = pages.size() - 1;
+        while (low < high) {
+            final int middle = (low + high + 1) >>> 1;
+            if (pages.get(middle).start <= position) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return pages.get(low);
+    }
+
+    /**
+     * Sets maximum count of pages which items are kept in memory. Least recently used pages above that count are evicted.
+     *
+     * @param maxLoadedPagesCount Count of pages. Should be at least 1.
+     */
+    public void setMaxLoadedPagesCount(final int maxLoadedPagesCount) {
+        if (maxLoadedPagesCount < 1) {
+            Lc.assertion("Max loaded pages count should be positive but it is " + maxLoadedPagesCount);
+            return;
+        }
+        synchronized (this) {
+            this.maxLoadedPagesCount = maxLoadedPagesCount;
+            evictPages();
+        }
+    }
+
+    /**
+     * Sets maximum count of pages which could be loading at same time. Works only if loader is {@link OffsetMoreItemsLoader}.
+     *
+     * @param maxConcurrentLoadsCount Count of pages. Should be at least 1.
+     */
+    public void setMaxConcurrentLoadsCount(final int maxConcurrentLoadsCount) {
+        if (maxConcurrentLoadsCount < 1) {
+            Lc.assertion("Max concurrent loads count should be positive but it is " + maxConcurrentLoadsCount);
+            return;
+        }
+        this.maxConcurrentLoadsCount = maxConcurrentLoadsCount;
+    }
+
+    /**
+     * Sets if collection should contain null placeholders for items which are not loaded yet.
+     * Count of placeholders is taken from {@link LoadedItems#getMoreItemsCount()} of last loaded page so {@link #size()}
+     * is showing total count of items right after first page loaded. Loaded items are replacing placeholders
+     * so loading is emitting {@link Change.Changed} instead of {@link Change.Inserted} and scrollbar is not jumping.
+     * Item at any placeholder position could be requested by {@link #loadItem(int)}.
+     *
+     * @param placeholdersEnabled True to show placeholders.
+     */
+    public void setPlaceholdersEnabled(final boolean placeholdersEnabled) {
+        synchronized (this) {
+            if (this.placeholdersEnabled == placeholdersEnabled) {
+                return;
+            }
+            this.placeholdersEnabled = placeholdersEnabled;
+            final List<TItem> insertedItems = new ArrayList<>();
+            final List<TItem> removedItems = new ArrayList<>();
+            final List<Change> changes = new ArrayList<>();
+            addPlaceholdersChanges(changes, insertedItems, removedItems, moreItemsCount.getValue());
+            notifyAboutChanges(insertedItems, removedItems, changes);
+        }
+    }
+
+    /**
+     * Returns count of loaded pages including evicted ones.
+     *
+     * @return Count of pages.
+     */
+    public int getPagesCount() {
+        synchronized (this) {
+            return pages.size();
+        }
+    }
+
+    /**
+     * Returns count of pages which items are in memory now including pages loaded before previous pages.
+     *
+     * @return Count of pages.
+     */
+    public int getLoadedPagesCount() {
+        synchronized (this) {
+            int result = pendingOffsetPages.size();
+            for (final Page<TItem, TMoreReference> page : pages) {
+                if (page.items != null) {
+                    result++;
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Returns if there are more items to load.
+     *
+     * @return True if there are more items to load.
+     */
+    public boolean hasMoreItems() {
+        return moreItemsCount.getValue() != 0;
+    }
+
+    /**
+     * Returns {@link Observable} which is providing status of if is there are more items to load or not.
+     *
+     * @return {@link Observable} of more items availability status.
+     */
+    @NonNull
+    public Observable<Boolean> observeHasMoreItems() {
+        return moreItemsCount.map(count -> count != 0).distinctUntilChanged();
+    }
+
+    @Override
+    public int size() {
+        synchronized (this) {
+            return loadedSize + placeholdersCount;
+        }
+    }
+
+    /**
+     * Returns item by position or null if page of item have been evicted or item is placeholder. Marks page of item as recently used.
+     * Use {@link #loadItem(int)} to get item of evicted page.
+     *
+     * @param position Position of item to get;
+     * @return Item or null.
+     */
+    @Nullable
+    @Override
+    public TItem get(final int position) {
+        synchronized (this) {
+            final Page<TItem, TMoreReference> page = findPage(position);
+            if (page == null) {
+                if (position >= 0 && position < loadedSize + placeholdersCount) {
+                    final Map.Entry<Integer, PendingOffsetPage> pendingPage = findPendingOffsetPage(position);
+                    if (pendingPage == null) {
+                        return null;
+                    }
+                    pendingPage.getValue().lastAccessNumber = ++accessNumber;
+                    return pendingPage.getValue().items.get(position - pendingPage.getKey());
+                }
+                throw new IndexOutOfBoundsException("Position " + position + " is out of size " + (loadedSize + placeholdersCount));
+            }
+            page.lastAccessNumber = ++accessNumber;
+            return page.items != null ? page.items.get(position - page.start) : null;
+        }
+    }
+
+    /**
+     * Returns items with null placeholders at positions of evicted pages and not loaded items.
+     * Placeholders are replaced with items of pages which have been loaded before previous pages.
+     *
+     * @return Collection of items.
+     */
+    @NonNull
+    @Override
+    public Collection<TItem> getItems() {
+        synchronized (this) {
+            final List<TItem> result = new ArrayList<>(loadedSize);
+            for (final Page<TItem, TMoreReference> page : pages) {
+                if (page.items != null) {
+                    result.addAll(page.items);
+                } else {
+                    result.addAll(Collections.nCopies(page.count, null));
+                }
+            }
+            result.addAll(Collections.nCopies(placeholdersCount, null));
+            for (final Map.Entry<Integer, PendingOffsetPage> entry : pendingOffsetPages.entrySet()) {
+                final int end = Math.min(entry.getKey() + entry.getValue().items.size(), result.size());
+                for (int position = Math.max(entry.getKey(), loadedSize); position < end; position++) {
+                    result.set(position, entry.getValue().items.get(position - entry.getKey()));
+                }
+            }
+            return Collections.unmodifiableCollection(result);
+        }
+    }
+
+    /**
+     * Returns {@link Observable} which is loading item by position. If page of item have been evicted then it will be loaded again.
+     * It could return null in onNext callback if there is no item to load for such position.
+     *
+     * @param position Position to load item;
+     * @return {@link Observable} to load item.
+     */
+    @NonNull
+    public Observable<TItem> loadItem(final int position) {
+        return Observable
+                .switchOnNext(Observable
+                        .fromCallable(() -> {
+                            synchronized (this) {
+                                final Page<TItem, TMoreReference> page = findPage(position);
+                                if (page != null) {
+                                    page.lastAccessNumber = ++accessNumber;
+                                    return page.items != null
+                                            ? Observable.just(page.items.get(position - page.start))
+                                            : reloadPage(page).switchMap(ignored -> Observable.<TItem>error(new LoadingMoreList.NotLoadedYetException()));
+                                }
+                                final Map.Entry<Integer, PendingOffsetPage> pendingPage = findPendingOffsetPage(position);
+                                if (pendingPage != null) {
+                                    pendingPage.getValue().lastAccessNumber = ++accessNumber;
+                                    return Observable.just(pendingPage.getValue().items.get(position - pendingPage.getKey()));
+                                }
+                            }
+                            if (moreItemsCount.getValue() == 0) {
+                                return Observable.just((TItem) null);
+                            }
+                            if (moreItemsLoader instanceof OffsetMoreItemsLoader) {
+                                return loadOffsetPages((OffsetMoreItemsLoader<TItem, TMoreReference, TLoadedItems>) moreItemsLoader, position);
+                            }
+                            return loadingMoreObservable.switchMap(ignored -> Observable.<TItem>error(new LoadingMoreList.NotLoadedYetException()));
+                        })
+                        .subscribeOn(loaderScheduler))
+                .retry((number, throwable) -> throwable instanceof LoadingMoreList.NotLoadedYetException)
+                .compose(loaderLane.failOnRelease());
+    }
+
+    /**
+     * Remove all loaded pages and resets collection's state.
+     */
+    public void reset() {
+        synchronized (this) {
+            final List<TItem> removedItems = new ArrayList<>(getItems());
+            pages.clear();
+            loadedSize = 0;
+            placeholdersCount = 0;
+            resetsCount++;
+            offsetPagesLoadingsCancelEvent.onNext(true);
+            offsetPagesLoadings.clear();
+            pendingOffsetPages.clear();
+            moreItemsReference = null;
+            if (!removedItems.isEmpty()) {
+                notifyAboutChange(Collections.emptyList(), removedItems, new Change.Removed(0, removedItems.size()));
+            }
+        }
+        moreItemsCount.onNext(LoadedItems.UNKNOWN_ITEMS_COUNT);
+    }
+
+    /**
+     * Releases resources of collection (e.g. loading lane). Loading is not possible after that:
+     * loadings in progress and new ones are failing with {@link java.util.concurrent.RejectedExecutionException}.
+     * Loadings of pages by offset which are not requested by anyone are stopped too.
+     * Call it when collection is not needed anymore.
+     */
+    public void dispose() {
+        synchronized (this) {
+            offsetPagesLoadingsCancelEvent.onNext(true);
+            offsetPagesLoadings.clear();
+        }
+        loaderLane.release();
+    }
+
+    private class PendingOffsetPage {
+
+        @NonNull
+        private final TLoadedItems loadedItems;
+        @NonNull
+        private final List<TItem> items;
+        private long lastAccessNumber;
+
+        public PendingOffsetPage(@NonNull final TLoadedItems loadedItems) {
+            this.loadedItems = loadedItems;
+            this.items = new ArrayList<>(loadedItems.getItems());
+        }
+
+    }
+
+    private static class Page<TItem, TMoreReference> {
+
+        @NonNull
+        private final MoreLoadRequest<TMoreReference> loadRequest;
+        private int start;
+        private int count;
+        // null means that page have been evicted
+        @Nullable
+        private List<TItem> items;
+        private long lastAccessNumber;
+        @Nullable
+        private Observable<?> reloadingObservable;
+
+        public Page(@NonNull final MoreLoadRequest<TMoreReference> loadRequest, final int start, @NonNull final List<TItem> items) {
+            this.loadRequest = loadRequest;
+            this.start = start;
+            this.count = items.size();
+            this.items = items;
+        }
+
+    }
+
+}
@@ -0,0 +1,34 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.collections.loadable;
+
+/**
+ * {@link MoreItemsLoader} which is emitting part of items by several chunks as soon as they are received or decoded.
+ * {@link LoadingMoreList} is adding items of each chunk right after it is emitted and takes reference and count of more items from it
+ * so reference of each chunk should point right after it's items. Then loading interrupted by error continues after already added chunks.
+ * {@link rx.Observable} returned by {@link #load(MoreLoadRequest)} should emit at least one chunk.
+ *
+ * @param <TItem>          Type of items to be loaded;
+ * @param <TMoreReference> Type of reference to be used to load next part of items;
+ * @param <TLoadedItems>   Type of loaded chunk of items.
+ */
+public interface StreamingMoreItemsLoader<TItem, TMoreReference, TLoadedItems extends LoadedItems<TItem, TMoreReference>>
+        extends MoreItemsLoader<TItem, TMoreReference, TLoadedItems> {
+}
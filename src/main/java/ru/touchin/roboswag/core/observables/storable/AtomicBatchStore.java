@@ -0,0 +1,48 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.touchin.roboswag.core.observables.storable;
+
+import android.support.annotation.NonNull;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+
+import rx.Completable;
+
+/**
+ * {@link BatchStore} which is able to store objects of several types by one atomic operation:
+ * either all objects are stored or none of them (e.g. if process have been killed during storing).
+ * Batch operations of {@link BatchStore} should be atomic too.
+ * Decorators of stores (e.g. {@link CachingStore}) are atomic only if their source store is atomic.
+ *
+ * @param <TKey>         Type of keys for values;
+ * @param <TStoreObject> Type of values stored in store.
+ */
+public interface AtomicBatchStore<TKey, TStoreObject> extends BatchStore<TKey, TStoreObject> {
+
+    /**
+     * Stores objects of several types to store with related keys atomically.
+     *
+     * @param storeObjectsByTypes Map of types and maps of keys and related objects of that type. Null values are allowed;
+     * @return {@link Completable} of storing.
+     */
+    @NonNull
+    Completable storeObjects(@NonNull Map<Type, Map<TKey, TStoreObject>> storeObjectsByTypes);
+
+}
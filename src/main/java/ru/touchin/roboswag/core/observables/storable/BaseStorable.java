@@ -23,7 +23,13 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import java.lang.reflect.Type;
-import java.util.concurrent.Executors;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.TimeUnit;
 
 import ru.touchin.roboswag.core.log.Lc;
@@ -35,10 +41,13 @@ import rx.Completable;
 import rx.Observable;
 import rx.Scheduler;
 import rx.Single;
+import rx.Subscription;
 import rx.exceptions.OnErrorThrowable;
 import rx.functions.Actions;
-import rx.schedulers.Schedulers;
+import rx.functions.Func1;
+import rx.subjects.BehaviorSubject;
 import rx.subjects.PublishSubject;
+import rx.subjects.Subject;
 
 /**
  * Created by Gavriil Sitnikov on 04/10/2015.
@@ -47,7 +56,8 @@ import rx.subjects.PublishSubject;
  * Supports migration from specific version to latest by {@link Migration} object.
  * Allows to set default value which will be returned if actual value is null.
  * Allows to declare specific {@link ObserveStrategy}.
- * Also specific {@link Scheduler} could be specified to not create new scheduler per storable.
+ * By default storables are loading and storing values on shared lanes of {@link StorableSchedulers}
+ * but specific {@link Scheduler} could be specified.
  *
  * @param <TKey>          Type of key to identify object;
  * @param <TObject>       Type of actual object;
@@ -59,6 +69,85 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
     public static final LcGroup STORABLE_LC_GROUP = new LcGroup("STORABLE");
 
     private static final long DEFAULT_CACHE_TIME_MILLIS = TimeUnit.SECONDS.toMillis(5);
+    private static final long SHUTDOWN_FLUSH_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(2);
+
+    // storables in write-behind mode which should be flushed on shutdown
+    private static final Set<BaseStorable<?, ?, ?, ?>> WRITE_BEHIND_STORABLES = Collections.newSetFromMap(new WeakHashMap<>());
+    private static boolean shutdownHookAdded;
+    // storables keeping fingerprint of last value or preloaded value which should be invalidated when same value is written by other storable;
+    // they are indexed by store and key so write is touching only storables of same value
+    private static final Map<Store<?, ?>, Map<Object, Set<BaseStorable<?, ?, ?, ?>>>> KNOWN_VALUE_STORABLES = new WeakHashMap<>();
+
+    private static void registerWriteBehindStorable(@NonNull final BaseStorable<?, ?, ?, ?> storable) {
+        synchronized (WRITE_BEHIND_STORABLES) {
+            WRITE_BEHIND_STORABLES.add(storable);
+            if (!shutdownHookAdded) {
+                shutdownHookAdded = true;
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    if (!flushAll().await(SHUTDOWN_FLUSH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                        STORABLE_LC_GROUP.w("Flushing of storables on shutdown is not finished in time");
+                    }
+                }));
+            }
+        }
+    }
+
+    private static void registerKnownValueStorable(@NonNull final BaseStorable<?, ?, ?, ?> storable) {
+        synchronized (KNOWN_VALUE_STORABLES) {
+            Map<Object, Set<BaseStorable<?, ?, ?, ?>>> storeStorables = KNOWN_VALUE_STORABLES.get(storable.store);
+            if (storeStorables == null) {
+                storeStorables = new HashMap<>();
+                KNOWN_VALUE_STORABLES.put(storable.store, storeStorables);
+            }
+            Set<BaseStorable<?, ?, ?, ?>> keyStorables = storeStorables.get(storable.key);
+            if (keyStorables == null) {
+                keyStorables = Collections.newSetFromMap(new WeakHashMap<>());
+                storeStorables.put(storable.key, keyStorables);
+            }
+            keyStorables.add(storable);
+        }
+    }
+
+    @SuppressWarnings("PMD.CompareObjectsWithEquals")
+    //CompareObjectsWithEquals: writing storable itself should not be invalidated
+    private static void invalidateKnownValuesOfSameValue(@NonNull final BaseStorable<?, ?, ?, ?> writingStorable) {
+        final List<BaseStorable<?, ?, ?, ?>> storablesToInvalidate;
+        synchronized (KNOWN_VALUE_STORABLES) {
+            final Map<Object, Set<BaseStorable<?, ?, ?, ?>>> storeStorables = KNOWN_VALUE_STORABLES.get(writingStorable.store);
+            final Set<BaseStorable<?, ?, ?, ?>> keyStorables = storeStorables != null ? storeStorables.get(writingStorable.key) : null;
+            if (keyStorables == null) {
+                return;
+            }
+            if (keyStorables.isEmpty()) {
+                // all storables of key have been collected
+                storeStorables.remove(writingStorable.key);
+                return;
+            }
+            storablesToInvalidate = new ArrayList<>(keyStorables);
+        }
+        for (final BaseStorable<?, ?, ?, ?> storable : storablesToInvalidate) {
+            if (storable != writingStorable) {
+                storable.forgetKnownValue();
+            }
+        }
+    }
+
+    /**
+     * Stores values of all storables in write-behind mode which are set but not stored yet.
+     * It is called on shutdown of process but it is better to call it manually when application is going to background.
+     *
+     * @return {@link Completable} that is storing values.
+     */
+    @NonNull
+    public static Completable flushAll() {
+        final List<Completable> flushes = new ArrayList<>();
+        synchronized (WRITE_BEHIND_STORABLES) {
+            for (final BaseStorable<?, ?, ?, ?> storable : WRITE_BEHIND_STORABLES) {
+                flushes.add(storable.flush());
+            }
+        }
+        return Completable.merge(flushes);
+    }
 
     @NonNull
     private static ObserveStrategy getDefaultObserveStrategyFor(@NonNull final Type objectType, @NonNull final Type storeObjectType) {
@@ -89,11 +178,32 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
     private final Observable<Optional<TObject>> valueObservable;
     @NonNull
     private final Scheduler scheduler;
+    private final long writeBehindDelayMillis;
+    // value which is set but not stored yet in write-behind mode; guarded by this
+    @Nullable
+    private Optional<TStoreObject> pendingStoreValue;
+    @Nullable
+    private Subscription pendingWriteSubscription;
+    // value loaded by StorableGroup which is used once instead of loading from store; guarded by this
+    @Nullable
+    private Optional<TStoreObject> preloadedStoreValue;
+    private final boolean preloadingSupported;
+    private final boolean lastValueFingerprintEnabled;
+    private final boolean hasDefaultValue;
+    // fingerprint of last loaded or stored value to check equality on set without loading; guarded by this
+    @Nullable
+    private StoreValueFingerprint lastValueFingerprint;
+    // increments on every write so values loaded before write won't be remembered; guarded by this
+    private long writesCount;
+    // queue of sets, updates and flushes which are executing one by one; guarded by this
+    @Nullable
+    private Subject<Completable, Completable> operationsQueue;
 
     public BaseStorable(@NonNull final BuilderCore<TKey, TObject, TStoreObject> builderCore) {
         this(builderCore.key, builderCore.objectType, builderCore.storeObjectType,
                 builderCore.store, builderCore.converter, builderCore.observeStrategy,
-                builderCore.migration, builderCore.defaultValue, builderCore.storeScheduler, builderCore.cacheTimeMillis);
+                builderCore.migration, builderCore.defaultValue, builderCore.storeScheduler, builderCore.cacheTimeMillis,
+                builderCore.writeBehindDelayMillis, builderCore.lastValueFingerprintEnabled);
     }
 
     @SuppressWarnings("PMD.ExcessiveParameterList")
@@ -107,19 +217,35 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
                          @Nullable final Migration<TKey> migration,
                          @Nullable final TObject defaultValue,
                          @Nullable final Scheduler storeScheduler,
-                         final long cacheTimeMillis) {
+                         final long cacheTimeMillis,
+                         final long writeBehindDelayMillis,
+                         final boolean lastValueFingerprintEnabled) {
         this.key = key;
         this.objectType = objectType;
         this.storeObjectType = storeObjectType;
         this.store = store;
         this.converter = converter;
+        this.writeBehindDelayMillis = writeBehindDelayMillis;
+        // value should be loaded after migration so it could not be preloaded
+        this.preloadingSupported = migration == null;
+        this.lastValueFingerprintEnabled = lastValueFingerprintEnabled;
+        this.hasDefaultValue = defaultValue != null;
 
         final ObserveStrategy nonNullObserveStrategy
                 = observeStrategy != null ? observeStrategy : getDefaultObserveStrategyFor(objectType, storeObjectType);
-        scheduler = storeScheduler != null ? storeScheduler : Schedulers.from(Executors.newSingleThreadExecutor());
-        storeValueObservable
-                = createStoreValueObservable(nonNullObserveStrategy, migration, defaultValue, cacheTimeMillis);
-        valueObservable = createValueObservable(storeValueObservable, nonNullObserveStrategy, cacheTimeMillis);
+        scheduler = storeScheduler != null ? storeScheduler : StorableSchedulers.getScheduler(key);
+        final Observable<Optional<TStoreObject>> storeInitialValueObservable = createStoreInitialLoadingObservable(migration)
+                .map(storeObject -> returnDefaultValueIfNull(storeObject, defaultValue));
+        storeValueObservable = createStoreValueObservable(storeInitialValueObservable, nonNullObserveStrategy, defaultValue, cacheTimeMillis);
+        valueObservable = nonNullObserveStrategy == ObserveStrategy.NO_CACHE
+                ? createSharedInitialValueObservable(storeInitialValueObservable, defaultValue)
+                : createValueObservable(storeValueObservable, nonNullObserveStrategy, cacheTimeMillis);
+        if (writeBehindDelayMillis > 0) {
+            registerWriteBehindStorable(this);
+        }
+        if (lastValueFingerprintEnabled) {
+            registerKnownValueStorable(this);
+        }
     }
 
     @Nullable
@@ -139,7 +265,24 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
 
     @NonNull
     private Observable<Optional<TStoreObject>> createStoreInitialLoadingObservable(@Nullable final Migration<TKey> migration) {
-        final Single<Optional<TStoreObject>> loadObservable = store.loadObject(storeObjectType, key)
+        final Single<Optional<TStoreObject>> loadObservable = Single
+                .defer(() -> {
+                    final long writeNumber;
+                    synchronized (this) {
+                        writeNumber = writesCount;
+                        // value is not stored yet so it is actual value
+                        if (pendingStoreValue != null) {
+                            return Single.just(pendingStoreValue);
+                        }
+                        if (preloadedStoreValue != null) {
+                            final Optional<TStoreObject> result = preloadedStoreValue;
+                            preloadedStoreValue = null;
+                            return Single.just(result);
+                        }
+                    }
+                    return SharedStoreLoadings.load(store, storeObjectType, key)
+                            .doOnSuccess(storeValue -> rememberFingerprint(storeValue.get(), writeNumber));
+                })
                 .doOnError(throwable -> STORABLE_LC_GROUP.w(throwable, "Exception while trying to load value of '%s' from store %s", key, store));
         return (migration != null ? migration.migrateToLatestVersion(key).andThen(loadObservable) : loadObservable)
                 .subscribeOn(scheduler)
@@ -151,24 +294,20 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
     }
 
     @NonNull
-    private Observable<Optional<TStoreObject>> createStoreValueObservable(@NonNull final ObserveStrategy observeStrategy,
-                                                                          @Nullable final Migration<TKey> migration,
+    private Observable<Optional<TStoreObject>> createStoreValueObservable(@NonNull final Observable<Optional<TStoreObject>> initialValueObservable,
+                                                                          @NonNull final ObserveStrategy observeStrategy,
                                                                           @Nullable final TObject defaultValue,
                                                                           final long cacheTimeMillis) {
-        final Observable<Optional<TStoreObject>> storeInitialLoadingObservable = createStoreInitialLoadingObservable(migration);
-        final Observable<Optional<TStoreObject>> result = storeInitialLoadingObservable
-                .concatWith(newStoreValueEvent)
-                .map(storeObject -> returnDefaultValueIfNull(storeObject, defaultValue));
+        final Observable<Optional<TStoreObject>> result = initialValueObservable
+                .concatWith(newStoreValueEvent.map(storeObject -> returnDefaultValueIfNull(storeObject, defaultValue)));
         return observeStrategy == ObserveStrategy.CACHE_STORE_VALUE || observeStrategy == ObserveStrategy.CACHE_STORE_AND_ACTUAL_VALUE
                 ? Observable.unsafeCreate(new OnSubscribeRefCountWithCacheTime<>(result.replay(1), cacheTimeMillis, TimeUnit.MILLISECONDS))
                 : result;
     }
 
     @NonNull
-    private Observable<Optional<TObject>> createValueObservable(@NonNull final Observable<Optional<TStoreObject>> storeValueObservable,
-                                                                @NonNull final ObserveStrategy observeStrategy,
-                                                                final long cacheTimeMillis) {
-        final Observable<Optional<TObject>> result = storeValueObservable
+    private Observable<Optional<TObject>> convertToObjects(@NonNull final Observable<Optional<TStoreObject>> storeValueObservable) {
+        return storeValueObservable
                 .map(storeObject -> {
                     try {
                         return new Optional<>(converter.toObject(objectType, storeObjectType, storeObject.get()));
@@ -178,11 +317,29 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
                         throw OnErrorThrowable.from(exception);
                     }
                 });
+    }
+
+    @NonNull
+    private Observable<Optional<TObject>> createValueObservable(@NonNull final Observable<Optional<TStoreObject>> storeValueObservable,
+                                                                @NonNull final ObserveStrategy observeStrategy,
+                                                                final long cacheTimeMillis) {
+        final Observable<Optional<TObject>> result = convertToObjects(storeValueObservable);
         return observeStrategy == ObserveStrategy.CACHE_ACTUAL_VALUE || observeStrategy == ObserveStrategy.CACHE_STORE_AND_ACTUAL_VALUE
                 ? Observable.unsafeCreate(new OnSubscribeRefCountWithCacheTime<>(result.replay(1), cacheTimeMillis, TimeUnit.MILLISECONDS))
                 : result;
     }
 
+    @NonNull
+    private Observable<Optional<TObject>> createSharedInitialValueObservable(@NonNull final Observable<Optional<TStoreObject>> initialValueObservable,
+                                                                             @Nullable final TObject defaultValue) {
+        // concurrent subscribers are sharing converting of initial value but it is not kept after that
+        return convertToObjects(initialValueObservable)
+                .replay(1)
+                .refCount()
+                .take(1)
+                .concatWith(convertToObjects(newStoreValueEvent.map(storeObject -> returnDefaultValueIfNull(storeObject, defaultValue))));
+    }
+
     /**
      * Returns key of value.
      *
@@ -235,9 +392,8 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
 
     @NonNull
     private Completable internalSet(@Nullable final TObject newValue, final boolean checkForEqualityBeforeSet) {
-        return (checkForEqualityBeforeSet ? storeValueObservable.take(1).toSingle() : Single.just(new Optional<>(null)))
-                .observeOn(scheduler)
-                .flatMapCompletable(oldStoreValue -> {
+        return Completable
+                .defer(() -> {
                     final TStoreObject newStoreValue;
                     try {
                         newStoreValue = converter.toStoreObject(objectType, storeObjectType, newValue);
@@ -246,29 +402,279 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
                                 key, newValue, store, converter);
                         return Completable.error(exception);
                     }
-                    if (checkForEqualityBeforeSet && ObjectUtils.equals(newStoreValue, oldStoreValue.get())) {
+                    if (!checkForEqualityBeforeSet) {
+                        return storeNewValue(newValue, newStoreValue, false, null);
+                    }
+                    final Boolean sameAsLastValue;
+                    synchronized (this) {
+                        sameAsLastValue = lastValueFingerprint != null ? lastValueFingerprint.isSameValue(newStoreValue) : null;
+                    }
+                    if (sameAsLastValue != null) {
+                        // fingerprint is enough to check equality so there is no need to load value from store
+                        return sameAsLastValue ? Completable.complete() : storeNewValue(newValue, newStoreValue, true, null);
+                    }
+                    return storeValueObservable.take(1).toSingle()
+                            .observeOn(scheduler)
+                            .flatMapCompletable(oldStoreValue -> ObjectUtils.equals(newStoreValue, oldStoreValue.get())
+                                    ? Completable.complete()
+                                    : storeNewValue(newValue, newStoreValue, true, oldStoreValue));
+                })
+                .subscribeOn(scheduler);
+    }
+
+    @NonNull
+    private Completable storeNewValue(@Nullable final TObject newValue,
+                                      @Nullable final TStoreObject newStoreValue,
+                                      final boolean checkedForEquality,
+                                      @Nullable final Optional<TStoreObject> oldStoreValue) {
+        final long writeNumber = startWrite();
+        return (writeBehindDelayMillis > 0
+                ? Completable.fromAction(() -> writeBehind(newStoreValue))
+                : store.storeObject(storeObjectType, key, newStoreValue)
+                .doOnError(throwable -> STORABLE_LC_GROUP.w(throwable,
+                        "Exception while trying to store value of '%s' from store %s by %s",
+                        key, newValue, store, converter))
+                .observeOn(scheduler))
+                .andThen(Completable.fromAction(() -> {
+                    finishWrite(newStoreValue, writeNumber);
+                    if (oldStoreValue != null) {
+                        STORABLE_LC_GROUP.i("Value of '%s' changed from '%s' to '%s'", key, oldStoreValue, newStoreValue);
+                    } else if (checkedForEquality) {
+                        STORABLE_LC_GROUP.i("Value of '%s' changed to '%s'", key, newStoreValue);
+                    } else {
+                        STORABLE_LC_GROUP.i("Value of '%s' force changed to '%s'", key, newStoreValue);
+                    }
+                }));
+    }
+
+    /**
+     * Prepares storable to writing of new value to store.
+     *
+     * @return Number of write to pass into {@link #finishWrite(Object, long)}.
+     */
+    long startWrite() {
+        final long writeNumber;
+        synchronized (this) {
+            preloadedStoreValue = null;
+            // value in store is unknown until it is stored
+            lastValueFingerprint = null;
+            writeNumber = ++writesCount;
+        }
+        // loading which is in progress could return old value
+        SharedStoreLoadings.forget(store, storeObjectType, key);
+        invalidateKnownValuesOfSameValue(this);
+        return writeNumber;
+    }
+
+    /**
+     * Notifies observers about new value which have been written to store.
+     *
+     * @param newStoreValue New value;
+     * @param writeNumber   Number of write returned by {@link #startWrite()}.
+     */
+    void finishWrite(@Nullable final TStoreObject newStoreValue, final long writeNumber) {
+        rememberFingerprint(newStoreValue, writeNumber);
+        newStoreValueEvent.onNext(new Optional<>(newStoreValue));
+    }
+
+    /**
+     * Converts value to store value.
+     *
+     * @param value Value to convert;
+     * @return Store value.
+     * @throws Converter.ConversionException Throws if value could not be converted.
+     */
+    @Nullable
+    TStoreObject toStoreObject(@Nullable final TObject value) throws Converter.ConversionException {
+        return converter.toStoreObject(objectType, storeObjectType, value);
+    }
+
+    /**
+     * Takes value which is set but not stored yet in write-behind mode as newer value is going to be stored directly.
+     * Value should be returned by {@link #restorePendingWrite(Optional)} if storing of newer value have failed.
+     *
+     * @return Taken value or null if there is no such value.
+     */
+    @Nullable
+    Optional<TStoreObject> takePendingWrite() {
+        synchronized (this) {
+            final Optional<TStoreObject> result = pendingStoreValue;
+            pendingStoreValue = null;
+            if (pendingWriteSubscription != null) {
+                pendingWriteSubscription.unsubscribe();
+                pendingWriteSubscription = null;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Returns value taken by {@link #takePendingWrite()} to store it later. Does nothing if newer value have been set since that.
+     *
+     * @param pendingValue Value returned by {@link #takePendingWrite()}.
+     */
+    void restorePendingWrite(@Nullable final Optional<TStoreObject> pendingValue) {
+        if (pendingValue == null) {
+            return;
+        }
+        synchronized (this) {
+            if (pendingStoreValue == null) {
+                pendingStoreValue = pendingValue;
+                schedulePendingWrite();
+            }
+        }
+    }
+
+    /**
+     * Returns {@link Scheduler} where values of storable are loading and storing.
+     *
+     * @return Scheduler of storable.
+     */
+    @NonNull
+    Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    private void rememberFingerprint(@Nullable final TStoreObject storeValue, final long writeNumber) {
+        if (!lastValueFingerprintEnabled) {
+            return;
+        }
+        synchronized (this) {
+            // value could be not actual if something have been written after it
+            if (writeNumber == writesCount) {
+                // null value is replaced by default value so it's fingerprint is unknown
+                lastValueFingerprint = storeValue != null || !hasDefaultValue ? StoreValueFingerprint.of(storeValue) : null;
+            }
+        }
+    }
+
+    /**
+     * Forgets fingerprint of last value (see {@link BuilderCore#setLastValueFingerprintEnabledInternal(boolean)})
+     * so next {@link #set(Object)} will load value from store to compare.
+     * Fingerprint is forgotten automatically when value is stored by other storable with same key and store
+     * but this method should be called if value have been changed in store directly.
+     */
+    public void invalidateLastValueFingerprint() {
+        forgetKnownValue();
+    }
+
+    private void forgetKnownValue() {
+        synchronized (this) {
+            lastValueFingerprint = null;
+            preloadedStoreValue = null;
+            // values which are loading now could be not actual
+            writesCount++;
+        }
+    }
+
+    /**
+     * Returns if value could be preloaded by {@link StorableGroup}. Values of storables with {@link Migration} could not be preloaded.
+     *
+     * @return True if value could be preloaded.
+     */
+    boolean isPreloadingSupported() {
+        return preloadingSupported;
+    }
+
+    /**
+     * Prepares storable to preloading of value by {@link StorableGroup}.
+     * Writes of this storable or of other storables with same key and store made after that are cancelling preloading.
+     *
+     * @return Number of write to pass into {@link #preloadStoreValue(Optional, long)}.
+     */
+    long startPreloading() {
+        registerKnownValueStorable(this);
+        synchronized (this) {
+            return writesCount;
+        }
+    }
+
+    /**
+     * Sets value loaded from store by batch loading of {@link StorableGroup}.
+     * It will be used once by next initial loading instead of loading from store.
+     * Value is ignored if something have been written since {@link #startPreloading()} as it could be not actual.
+     *
+     * @param storeValue  Value loaded from store;
+     * @param writeNumber Number of write returned by {@link #startPreloading()}.
+     */
+    void preloadStoreValue(@NonNull final Optional<TStoreObject> storeValue, final long writeNumber) {
+        if (!preloadingSupported) {
+            return;
+        }
+        synchronized (this) {
+            if (writeNumber == writesCount) {
+                preloadedStoreValue = storeValue;
+            }
+        }
+    }
+
+    private void writeBehind(@Nullable final TStoreObject newStoreValue) {
+        synchronized (this) {
+            pendingStoreValue = new Optional<>(newStoreValue);
+            schedulePendingWrite();
+        }
+    }
+
+    private void schedulePendingWrite() {
+        synchronized (this) {
+            if (pendingWriteSubscription != null) {
+                return;
+            }
+            pendingWriteSubscription = Completable.timer(writeBehindDelayMillis, TimeUnit.MILLISECONDS, scheduler)
+                    .andThen(Completable.defer(() -> {
+                        synchronized (this) {
+                            // next set should schedule new write
+                            pendingWriteSubscription = null;
+                        }
+                        return flush();
+                    }))
+                    // error is logged by flush; value is still pending so it is storing again after delay
+                    .subscribe(Actions.empty(), throwable -> {
+                        synchronized (this) {
+                            if (pendingStoreValue != null) {
+                                schedulePendingWrite();
+                            }
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Stores value which is set but not stored yet in write-behind mode (see {@link BuilderCore#setWriteBehindInternal(long, TimeUnit)}).
+     * Does nothing if there is no such value. Flushes are executing one by one with updates so older value won't overwrite newer one.
+     *
+     * @return {@link Completable} that is storing value.
+     */
+    @NonNull
+    public Completable flush() {
+        return enqueue(Completable
+                .defer(() -> {
+                    final Optional<TStoreObject> valueToStore;
+                    synchronized (this) {
+                        valueToStore = pendingStoreValue;
+                    }
+                    if (valueToStore == null) {
                         return Completable.complete();
                     }
-                    return store.storeObject(storeObjectType, key, newStoreValue)
+                    return store.storeObject(storeObjectType, key, valueToStore.get())
                             .doOnError(throwable -> STORABLE_LC_GROUP.w(throwable,
-                                    "Exception while trying to store value of '%s' from store %s by %s",
-                                    key, newValue, store, converter))
-                            .observeOn(scheduler)
-                            .andThen(Completable.fromAction(() -> {
-                                newStoreValueEvent.onNext(new Optional<>(newStoreValue));
-                                if (checkForEqualityBeforeSet) {
-                                    STORABLE_LC_GROUP.i("Value of '%s' changed from '%s' to '%s'", key, oldStoreValue, newStoreValue);
-                                } else {
-                                    STORABLE_LC_GROUP.i("Value of '%s' force changed to '%s'", key, newStoreValue);
+                                    "Exception while trying to store value of '%s' to store %s", key, store))
+                            .doOnCompleted(() -> {
+                                synchronized (this) {
+                                    if (pendingStoreValue == valueToStore) {
+                                        pendingStoreValue = null;
+                                    }
                                 }
-                            }));
-                });
+                            });
+                })
+                .subscribeOn(scheduler));
     }
 
     /**
      * Creates observable which is async setting value to store.
      * It is not checking if stored value equals new value.
      * In result it will be faster to not get value from store and compare but it will emit item to {@link #observe()} subscribers.
+     * Value is set after sets and updates of this storable which have been started before.
      * NOTE: It could emit ONLY completed and errors events. It is not providing onNext event!
      *
      * @param newValue Value to set;
@@ -277,7 +683,91 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
     //COMPATIBILITY NOTE: it is not Completable to prevent migration of old code
     @NonNull
     public Observable<?> forceSet(@Nullable final TObject newValue) {
-        return internalSet(newValue, false).toObservable();
+        return enqueue(internalSet(newValue, false)).toObservable();
+    }
+
+    /**
+     * Returns {@link Single} which is atomically updating value: loads current value, transforms it by updater and stores result.
+     * Updates and sets of this storable are executing one by one so concurrent updates (e.g. incrementing of counter) are not lost.
+     * Note that they are not synchronized with sets and updates of other storables with same key and with {@link StorableTransaction}
+     * so use one storable object for key which is updated concurrently.
+     * It emits change to {@link #observe()} subscribers only if value changed.
+     *
+     * @param updater Function to create new value from current value. It is called on scheduler of storable;
+     * @return {@link Single} which is emitting new value.
+     */
+    @NonNull
+    public Single<TObject> update(@NonNull final Func1<TObject, TObject> updater) {
+        return enqueue(createUpdate(updater));
+    }
+
+    @NonNull
+    private Completable enqueue(@NonNull final Completable operation) {
+        return enqueue(operation.toSingleDefault(true)).toCompletable();
+    }
+
+    // operation is executing after all operations enqueued before it
+    @NonNull
+    private <T> Single<T> enqueue(@NonNull final Single<T> operation) {
+        return Single.create(subscriber -> getOperationsQueue().onNext(Completable
+                .defer(() -> subscriber.isUnsubscribed()
+                        ? Completable.complete()
+                        : operation
+                        .doOnSuccess(subscriber::onSuccess)
+                        .doOnError(subscriber::onError)
+                        .toCompletable()
+                        .onErrorComplete())));
+    }
+
+    /**
+     * Holds queue of sets, updates and flushes of storable to write it's value by operation of many storables (e.g. {@link StorableTransaction}).
+     * Queue is held right after all operations enqueued before this call are finished
+     * and operations enqueued after this call are waiting till release completes or fails.
+     * Holds of many storables should be taken at once under same lock to not deadlock with other such operations.
+     *
+     * @param release {@link Completable} which completes when queue should be released;
+     * @return {@link Completable} which completes when queue is held.
+     */
+    @NonNull
+    Completable holdOperations(@NonNull final Completable release) {
+        final BehaviorSubject<Boolean> heldEvent = BehaviorSubject.create();
+        enqueue(Completable.fromAction(() -> heldEvent.onNext(true)).andThen(release.onErrorComplete()))
+                .subscribe(Actions.empty(), Actions.empty());
+        return heldEvent.first().toCompletable();
+    }
+
+    @NonNull
+    private Subject<Completable, Completable> getOperationsQueue() {
+        synchronized (this) {
+            if (operationsQueue == null) {
+                operationsQueue = PublishSubject.<Completable>create().toSerialized();
+                operationsQueue.onBackpressureBuffer()
+                        .concatMap(Completable::toObservable)
+                        .subscribe();
+            }
+            return operationsQueue;
+        }
+    }
+
+    @NonNull
+    private Single<TObject> createUpdate(@NonNull final Func1<TObject, TObject> updater) {
+        return storeValueObservable.take(1).toSingle()
+                .observeOn(scheduler)
+                .flatMap(oldStoreValue -> {
+                    final TObject newValue;
+                    final TStoreObject newStoreValue;
+                    try {
+                        newValue = updater.call(converter.toObject(objectType, storeObjectType, oldStoreValue.get()));
+                        newStoreValue = converter.toStoreObject(objectType, storeObjectType, newValue);
+                    } catch (final Converter.ConversionException exception) {
+                        STORABLE_LC_GROUP.w(exception, "Exception while trying to update value of '%s' from store %s by %s",
+                                key, store, converter);
+                        return Single.error(exception);
+                    }
+                    return ObjectUtils.equals(newStoreValue, oldStoreValue.get())
+                            ? Single.just(newValue)
+                            : storeNewValue(newValue, newStoreValue, true, oldStoreValue).toSingleDefault(newValue);
+                });
     }
 
     /**
@@ -285,6 +775,7 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
      * It is checking if stored value equals new value.
      * In result it will take time to get value from store and compare
      * but it won't emit item to {@link #observe()} subscribers if stored value equals new value.
+     * Value is set after sets and updates of this storable which have been started before.
      * NOTE: It could emit ONLY completed and errors events. It is not providing onNext event!
      *
      * @param newValue Value to set;
@@ -293,7 +784,7 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
     //COMPATIBILITY NOTE: it is not Completable to prevent migration of old code
     @NonNull
     public Observable<?> set(@Nullable final TObject newValue) {
-        return internalSet(newValue, true).toObservable();
+        return enqueue(internalSet(newValue, true)).toObservable();
     }
 
     @Deprecated
@@ -411,19 +902,22 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
         @Nullable
         private Scheduler storeScheduler;
         private long cacheTimeMillis;
+        private long writeBehindDelayMillis;
+        private boolean lastValueFingerprintEnabled;
 
         protected BuilderCore(@NonNull final TKey key,
                               @NonNull final Type objectType,
                               @NonNull final Type storeObjectType,
                               @NonNull final Store<TKey, TStoreObject> store,
                               @NonNull final Converter<TObject, TStoreObject> converter) {
-            this(key, objectType, storeObjectType, store, converter, null, null, null, null, DEFAULT_CACHE_TIME_MILLIS);
+            this(key, objectType, storeObjectType, store, converter, null, null, null, null, DEFAULT_CACHE_TIME_MILLIS, 0, false);
         }
 
         protected BuilderCore(@NonNull final BuilderCore<TKey, TObject, TStoreObject> sourceBuilder) {
             this(sourceBuilder.key, sourceBuilder.objectType, sourceBuilder.storeObjectType,
                     sourceBuilder.store, sourceBuilder.converter, sourceBuilder.observeStrategy,
-                    sourceBuilder.migration, sourceBuilder.defaultValue, sourceBuilder.storeScheduler, sourceBuilder.cacheTimeMillis);
+                    sourceBuilder.migration, sourceBuilder.defaultValue, sourceBuilder.storeScheduler, sourceBuilder.cacheTimeMillis,
+                    sourceBuilder.writeBehindDelayMillis, sourceBuilder.lastValueFingerprintEnabled);
         }
 
         @SuppressWarnings({"PMD.ExcessiveParameterList", "CPD-START"})
@@ -438,7 +932,9 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
                             @Nullable final Migration<TKey> migration,
                             @Nullable final TObject defaultValue,
                             @Nullable final Scheduler storeScheduler,
-                            final long cacheTimeMillis) {
+                            final long cacheTimeMillis,
+                            final long writeBehindDelayMillis,
+                            final boolean lastValueFingerprintEnabled) {
             this.key = key;
             this.objectType = objectType;
             this.storeObjectType = storeObjectType;
@@ -449,6 +945,8 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
             this.defaultValue = defaultValue;
             this.storeScheduler = storeScheduler;
             this.cacheTimeMillis = cacheTimeMillis;
+            this.writeBehindDelayMillis = writeBehindDelayMillis;
+            this.lastValueFingerprintEnabled = lastValueFingerprintEnabled;
         }
 
         @SuppressWarnings("CPD-END")
@@ -468,6 +966,29 @@ public abstract class BaseStorable<TKey, TObject, TStoreObject, TReturnObject> {
             this.cacheTimeMillis = timeUnit.toMillis(cacheTime);
         }
 
+        /**
+         * Enables write-behind mode: new values are emitted to observers immediately but stored only after delay.
+         * All values set during delay are coalesced so only last value is stored.
+         * Use {@link BaseStorable#flush()} or {@link BaseStorable#flushAll()} to store values immediately.
+         *
+         * @param writeDelay Delay of storing. 0 disables write-behind mode;
+         * @param timeUnit   Delay units.
+         */
+        protected void setWriteBehindInternal(final long writeDelay, @NonNull final TimeUnit timeUnit) {
+            this.writeBehindDelayMillis = timeUnit.toMillis(writeDelay);
+        }
+
+        /**
+         * Enables keeping of compact fingerprint of last loaded or stored value (small value itself or it's hash).
+         * It is used by {@link BaseStorable#set(Object)} to check if value changed without loading value from store.
+         * Value is loaded only if fingerprint is unknown or it is not enough to prove equality.
+         *
+         * @param lastValueFingerprintEnabled True to keep fingerprint.
+         */
+        protected void setLastValueFingerprintEnabledInternal(final boolean lastValueFingerprintEnabled) {
+            this.lastValueFingerprintEnabled = lastValueFingerprintEnabled;
+        }
+
         @Nullable
         protected TObject getDefaultValue() {
             return defaultValue;
@@ -0,0 +1,61 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.touchin.roboswag.core.observables.storable;
+
+import android.support.annotation.NonNull;
+
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Map;
+
+import ru.touchin.roboswag.core.utils.Optional;
+import rx.Completable;
+import rx.Single;
+
+/**
+ * {@link Store} which is able to load and store several objects by one call (e.g. one database transaction or one request).
+ * Use {@link BatchStores} to call batch operations on any store: they are falling back to per-key operations
+ * if store is not implementing this interface.
+ *
+ * @param <TKey>         Type of keys for values;
+ * @param <TStoreObject> Type of values stored in store.
+ */
+public interface BatchStore<TKey, TStoreObject> extends Store<TKey, TStoreObject> {
+
+    /**
+     * Loads objects from store by keys.
+     *
+     * @param storeObjectType Type of objects to load;
+     * @param keys            Keys related to objects;
+     * @return Map of keys and objects found by keys. Map should contain all requested keys.
+     */
+    @NonNull
+    Single<Map<TKey, Optional<TStoreObject>>> loadObjects(@NonNull Type storeObjectType, @NonNull Collection<TKey> keys);
+
+    /**
+     * Stores objects to store with related keys.
+     *
+     * @param storeObjectType Type of objects to store;
+     * @param storeObjects    Map of keys and related objects. Null values are allowed;
+     * @return {@link Completable} of storing.
+     */
+    @NonNull
+    Completable storeObjects(@NonNull Type storeObjectType, @NonNull Map<TKey, TStoreObject> storeObjects);
+
+}
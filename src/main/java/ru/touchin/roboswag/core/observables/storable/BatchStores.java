@@ -0,0 +1,125 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.touchin.roboswag.core.observables.storable;
+
+import android.support.annotation.NonNull;
+
+import java.lang.reflect.Type;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import ru.touchin.roboswag.core.utils.Optional;
+import rx.Completable;
+import rx.Observable;
+import rx.Single;
+
+/**
+ * Utility class to call batch operations of {@link BatchStore} on any {@link Store}.
+ * If store is not {@link BatchStore} then operations are done by single-key methods of store for each key.
+ */
+public final class BatchStores {
+
+    /**
+     * Loads objects from store by keys.
+     *
+     * @param store           Store to load objects from;
+     * @param storeObjectType Type of objects to load;
+     * @param keys            Keys related to objects;
+     * @param <TKey>          Type of keys;
+     * @param <TStoreObject>  Type of objects;
+     * @return Map of keys and objects found by keys.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    //unchecked: it's OK as we are checking type of store
+    public static <TKey, TStoreObject> Single<Map<TKey, Optional<TStoreObject>>> loadObjects(@NonNull final Store<TKey, TStoreObject> store,
+                                                                                          @NonNull final Type storeObjectType,
+                                                                                          @NonNull final Collection<TKey> keys) {
+        if (store instanceof BatchStore) {
+            return ((BatchStore<TKey, TStoreObject>) store).loadObjects(storeObjectType, keys);
+        }
+        final List<Observable<Map.Entry<TKey, Optional<TStoreObject>>>> loadings = new ArrayList<>(keys.size());
+        for (final TKey key : keys) {
+            loadings.add(store.loadObject(storeObjectType, key)
+                    .map(storeObject -> (Map.Entry<TKey, Optional<TStoreObject>>) new AbstractMap.SimpleImmutableEntry<>(key, storeObject))
+                    .toObservable());
+        }
+        return Observable.merge(loadings)
+                .toMap(Map.Entry::getKey, Map.Entry::getValue)
+                .toSingle();
+    }
+
+    /**
+     * Stores objects to store with related keys.
+     *
+     * @param store           Store to store objects to;
+     * @param storeObjectType Type of objects to store;
+     * @param storeObjects    Map of keys and related objects. Null values are allowed;
+     * @param <TKey>          Type of keys;
+     * @param <TStoreObject>  Type of objects;
+     * @return {@link Completable} of storing.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    //unchecked: it's OK as we are checking type of store
+    public static <TKey, TStoreObject> Completable storeObjects(@NonNull final Store<TKey, TStoreObject> store,
+                                                                @NonNull final Type storeObjectType,
+                                                                @NonNull final Map<TKey, TStoreObject> storeObjects) {
+        if (store instanceof BatchStore) {
+            return ((BatchStore<TKey, TStoreObject>) store).storeObjects(storeObjectType, storeObjects);
+        }
+        final List<Completable> storings = new ArrayList<>(storeObjects.size());
+        for (final Map.Entry<TKey, TStoreObject> entry : storeObjects.entrySet()) {
+            storings.add(store.storeObject(storeObjectType, entry.getKey(), entry.getValue()));
+        }
+        return Completable.merge(storings);
+    }
+
+    /**
+     * Stores objects of several types to store with related keys.
+     * Storing is atomic only if store is {@link AtomicBatchStore}, else objects are stored by one batch call per type sequentially.
+     *
+     * @param store               Store to store objects to;
+     * @param storeObjectsByTypes Map of types and maps of keys and related objects of that type. Null values are allowed;
+     * @param <TKey>              Type of keys;
+     * @param <TStoreObject>      Type of objects;
+     * @return {@link Completable} of storing.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    //unchecked: it's OK as we are checking type of store
+    public static <TKey, TStoreObject> Completable storeObjects(@NonNull final Store<TKey, TStoreObject> store,
+                                                                @NonNull final Map<Type, Map<TKey, TStoreObject>> storeObjectsByTypes) {
+        if (store instanceof AtomicBatchStore) {
+            return ((AtomicBatchStore<TKey, TStoreObject>) store).storeObjects(storeObjectsByTypes);
+        }
+        final List<Completable> storings = new ArrayList<>(storeObjectsByTypes.size());
+        for (final Map.Entry<Type, Map<TKey, TStoreObject>> typeEntry : storeObjectsByTypes.entrySet()) {
+            storings.add(storeObjects(store, typeEntry.getKey(), typeEntry.getValue()));
+        }
+        return Completable.concat(storings);
+    }
+
+    private BatchStores() {
+    }
+
+}
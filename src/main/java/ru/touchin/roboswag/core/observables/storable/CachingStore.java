@@ -0,0 +1,373 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.storable;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ru.touchin.roboswag.core.log.Lc;
+import ru.touchin.roboswag.core.utils.Optional;
+import rx.Completable;
+import rx.Single;
+import rx.functions.Func2;
+
+/**
+ * {@link Store} decorator which is caching objects of source store in memory.
+ * Cache is shared between all users of store (e.g. all storables) and it is bounded by count of entries or by total weight of entries.
+ * Least recently used entries are evicted first.
+ * Objects are loaded from source store only if they are not in cache (read-through) and stored objects are put into cache
+ * after storing to source store (write-through). Absence of object is cached too so {@link #contains(Object)} is not accessing source store
+ * for keys which are known to have no value.
+ * Entry is cached with type of store object so loading of same key with other type is passed to source store.
+ * Batch operations are passed to source store as batch operations so storing is atomic only if source store is {@link AtomicBatchStore}.
+ * Counters of hits, misses and evictions are provided to choose size of cache.
+ *
+ * @param <TKey>         Type of keys for values;
+ * @param <TStoreObject> Type of values stored in store.
+ */
+public class CachingStore<TKey, TStoreObject> implements AtomicBatchStore<TKey, TStoreObject> {
+
+    private static final int MAX_WRITTEN_KEYS_COUNT = 1024;
+
+    @NonNull
+    private final Store<TKey, TStoreObject> sourceStore;
+    private final long maxWeight;
+    @NonNull
+    private final Func2<TKey, TStoreObject, Integer> weigher;
+    // access-ordered so first entries are least recently used; guarded by itself
+    @NonNull
+    private final LinkedHashMap<TKey, Entry<TStoreObject>> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight;
+    // versions of lately written keys so loadings started before write of key won't put old value into cache; guarded by cache
+    // it is insertion-ordered and versions are increasing so first entries are oldest
+    @NonNull
+    private final LinkedHashMap<TKey, Long> writtenKeysVersions = new LinkedHashMap<>();
+    // version of keys which are not in writtenKeysVersions (maximal version of forgotten keys)
+    private long forgottenKeysVersion;
+    private long lastVersion;
+    @NonNull
+    private final AtomicLong hitsCount = new AtomicLong();
+    @NonNull
+    private final AtomicLong missesCount = new AtomicLong();
+    @NonNull
+    private final AtomicLong evictionsCount = new AtomicLong();
+
+    /**
+     * Creates store with cache bounded by count of entries.
+     *
+     * @param sourceStore     Store to cache objects from;
+     * @param maxEntriesCount Maximum count of cached entries.
+     */
+    public CachingStore(@NonNull final Store<TKey, TStoreObject> sourceStore, final int maxEntriesCount) {
+        this(sourceStore, maxEntriesCount, (key, storeObject) -> 1);
+    }
+
+    /**
+     * Creates store with cache bounded by total weight of entries.
+     *
+     * @param sourceStore Store to cache objects from;
+     * @param maxWeight   Maximum total weight of cached entries;
+     * @param weigher     Function to calculate weight of entry (e.g. size of byte array). Store object could be null.
+     */
+    public CachingStore(@NonNull final Store<TKey, TStoreObject> sourceStore,
+                        final long maxWeight,
+                        @NonNull final Func2<TKey, TStoreObject, Integer> weigher) {
+        if (maxWeight <= 0) {
+            Lc.assertion("Max weight of cache should be positive but it is " + maxWeight);
+        }
+        this.sourceStore = sourceStore;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    @NonNull
+    @Override
+    public Single<Boolean> contains(@NonNull final TKey key) {
+        return Single.defer(() -> {
+            final Entry<TStoreObject> entry = getEntry(null, key);
+            return entry != null ? Single.just(entry.storeObject != null) : sourceStore.contains(key);
+        });
+    }
+
+    @NonNull
+    @Override
+    public Completable storeObject(@NonNull final Type storeObjectType, @NonNull final TKey key, @Nullable final TStoreObject storeObject) {
+        return Completable.defer(() -> {
+            final long version = startWrite(key);
+            return sourceStore.storeObject(storeObjectType, key, storeObject)
+                    .doOnCompleted(() -> putEntry(storeObjectType, key, storeObject, version));
+        });
+    }
+
+    @NonNull
+    @Override
+    public Single<Optional<TStoreObject>> loadObject(@NonNull final Type storeObjectType, @NonNull final TKey key) {
+        return Single.defer(() -> {
+            final Entry<TStoreObject> entry = getEntry(storeObjectType, key);
+            if (entry != null) {
+                return Single.just(new Optional<>(entry.storeObject));
+            }
+            final long version = getVersion(key);
+            return sourceStore.loadObject(storeObjectType, key)
+                    .doOnSuccess(storeObject -> putEntry(storeObjectType, key, storeObject.get(), version));
+        });
+    }
+
+    @NonNull
+    @Override
+    public Single<Map<TKey, Optional<TStoreObject>>> loadObjects(@NonNull final Type storeObjectType, @NonNull final Collection<TKey> keys) {
+        return Single.defer(() -> {
+            final Map<TKey, Optional<TStoreObject>> result = new HashMap<>();
+            final Map<TKey, Long> missedKeysVersions = new HashMap<>();
+            for (final TKey key : keys) {
+                final Entry<TStoreObject> entry = getEntry(storeObjectType, key);
+                if (entry != null) {
+                    result.put(key, new Optional<>(entry.storeObject));
+                } else {
+                    missedKeysVersions.put(key, getVersion(key));
+                }
+            }
+            if (missedKeysVersions.isEmpty()) {
+                return Single.just(result);
+            }
+            return BatchStores.loadObjects(sourceStore, storeObjectType, missedKeysVersions.keySet())
+                    .map(loadedObjects -> {
+                        for (final Map.Entry<TKey, Optional<TStoreObject>> loadedObject : loadedObjects.entrySet()) {
+                            final Long version = missedKeysVersions.get(loadedObject.getKey());
+                            if (version != null) {
+                                putEntry(storeObjectType, loadedObject.getKey(), loadedObject.getValue().get(), version);
+                            }
+                            result.put(loadedObject.getKey(), loadedObject.getValue());
+                        }
+                        return result;
+                    });
+        });
+    }
+
+    @NonNull
+    @Override
+    public Completable storeObjects(@NonNull final Type storeObjectType, @NonNull final Map<TKey, TStoreObject> storeObjects) {
+        return Completable.defer(() -> {
+            final Map<TKey, Long> versions = new HashMap<>();
+            for (final TKey key : storeObjects.keySet()) {
+                versions.put(key, startWrite(key));
+            }
+            return BatchStores.storeObjects(sourceStore, storeObjectType, storeObjects)
+                    .doOnCompleted(() -> {
+                        for (final Map.Entry<TKey, TStoreObject> storeObject : storeObjects.entrySet()) {
+                            putEntry(storeObjectType, storeObject.getKey(), storeObject.getValue(), versions.get(storeObject.getKey()));
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Stores objects of several types to source store by one call if it is {@link AtomicBatchStore}
+     * or by one call per type otherwise (see {@link BatchStores#storeObjects(Store, Map)}) so storing is not atomic in that case.
+     *
+     * @param storeObjectsByTypes Map of types and maps of keys and related objects of that type. Null values are allowed;
+     * @return {@link Completable} of storing.
+     */
+    @NonNull
+    @Override
+    public Completable storeObjects(@NonNull final Map<Type, Map<TKey, TStoreObject>> storeObjectsByTypes) {
+        return Completable.defer(() -> {
+            final Map<TKey, Long> versions = new HashMap<>();
+            for (final Map<TKey, TStoreObject> storeObjects : storeObjectsByTypes.values()) {
+                for (final TKey key : storeObjects.keySet()) {
+                    versions.put(key, startWrite(key));
+                }
+            }
+            return BatchStores.storeObjects(sourceStore, storeObjectsByTypes)
+                    .doOnCompleted(() -> {
+                        for (final Map.Entry<Type, Map<TKey, TStoreObject>> typeEntry : storeObjectsByTypes.entrySet()) {
+                            for (final Map.Entry<TKey, TStoreObject> storeObject : typeEntry.getValue().entrySet()) {
+                                putEntry(typeEntry.getKey(), storeObject.getKey(), storeObject.getValue(), versions.get(storeObject.getKey()));
+                            }
+                        }
+                    });
+        });
+    }
+
+    // returns entry of any type if type is null
+    @Nullable
+    private Entry<TStoreObject> getEntry(@Nullable final Type storeObjectType, @NonNull final TKey key) {
+        Entry<TStoreObject> entry;
+        synchronized (cache) {
+            entry = cache.get(key);
+        }
+        if (entry != null && storeObjectType != null && !entry.storeObjectType.equals(storeObjectType)) {
+            entry = null;
+        }
+        if (entry != null) {
+            hitsCount.incrementAndGet();
+        } else {
+            missesCount.incrementAndGet();
+        }
+        return entry;
+    }
+
+    private long getVersion(@NonNull final TKey key) {
+        synchronized (cache) {
+            final Long version = writtenKeysVersions.get(key);
+            return version != null ? version : forgottenKeysVersion;
+        }
+    }
+
+    // removes entry so nobody will read old value during writing; returns new version of key
+    private long startWrite(@NonNull final TKey key) {
+        synchronized (cache) {
+            removeEntry(key);
+            final long version = ++lastVersion;
+            // reinserting key to keep order of versions
+            writtenKeysVersions.remove(key);
+            writtenKeysVersions.put(key, version);
+            if (writtenKeysVersions.size() > MAX_WRITTEN_KEYS_COUNT) {
+                final Iterator<Long> iterator = writtenKeysVersions.values().iterator();
+                forgottenKeysVersion = iterator.next();
+                iterator.remove();
+            }
+            return version;
+        }
+    }
+
+    private void putEntry(@NonNull final Type storeObjectType,
+                          @NonNull final TKey key,
+                          @Nullable final TStoreObject storeObject,
+                          final long version) {
+        final int weight = weigher.call(key, storeObject);
+        synchronized (cache) {
+            if (version != getVersion(key) || weight > maxWeight) {
+                // key have been written after reading/writing of this value so it could be not actual
+                return;
+            }
+            removeEntry(key);
+            cache.put(key, new Entry<>(storeObjectType, storeObject, weight));
+            totalWeight += weight;
+            final Iterator<Entry<TStoreObject>> iterator = cache.values().iterator();
+            while (totalWeight > maxWeight && iterator.hasNext()) {
+                totalWeight -= iterator.next().weight;
+                iterator.remove();
+                evictionsCount.incrementAndGet();
+            }
+        }
+    }
+
+    private void removeEntry(@NonNull final TKey key) {
+        final Entry<TStoreObject> oldEntry = cache.remove(key);
+        if (oldEntry != null) {
+            totalWeight -= oldEntry.weight;
+        }
+    }
+
+    /**
+     * Removes object from cache so it will be loaded from source store next time.
+     *
+     * @param key Key of object.
+     */
+    public void invalidate(@NonNull final TKey key) {
+        startWrite(key);
+    }
+
+    /**
+     * Removes all objects from cache.
+     */
+    public void invalidateAll() {
+        synchronized (cache) {
+            cache.clear();
+            totalWeight = 0;
+            writtenKeysVersions.clear();
+            forgottenKeysVersion = ++lastVersion;
+        }
+    }
+
+    /**
+     * Returns source store which objects are cached.
+     *
+     * @return Source store.
+     */
+    @NonNull
+    public Store<TKey, TStoreObject> getSourceStore() {
+        return sourceStore;
+    }
+
+    /**
+     * Returns count of requests that have been answered from cache.
+     *
+     * @return Count of hits.
+     */
+    public long getHitsCount() {
+        return hitsCount.get();
+    }
+
+    /**
+     * Returns count of requests that have been passed to source store as there was no object in cache.
+     *
+     * @return Count of misses.
+     */
+    public long getMissesCount() {
+        return missesCount.get();
+    }
+
+    /**
+     * Returns count of entries that have been evicted from cache to fit maximum weight.
+     *
+     * @return Count of evictions.
+     */
+    public long getEvictionsCount() {
+        return evictionsCount.get();
+    }
+
+    /**
+     * Returns current total weight of cached entries (count of entries if cache is bounded by count).
+     *
+     * @return Total weight.
+     */
+    public long getWeight() {
+        synchronized (cache) {
+            return totalWeight;
+        }
+    }
+
+    private static class Entry<TStoreObject> {
+
+        @NonNull
+        private final Type storeObjectType;
+        @Nullable
+        private final TStoreObject storeObject;
+        private final int weight;
+
+        public Entry(@NonNull final Type storeObjectType, @Nullable final TStoreObject storeObject, final int weight) {
+            this.storeObjectType = storeObjectType;
+            this.storeObject = storeObject;
+            this.weight = weight;
+        }
+
+    }
+
+}
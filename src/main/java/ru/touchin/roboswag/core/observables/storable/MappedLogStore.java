@@ -0,0 +1,573 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.storable;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import ru.touchin.roboswag.core.utils.Optional;
+import rx.Completable;
+import rx.Single;
+import rx.functions.Actions;
+import rx.schedulers.Schedulers;
+
+/**
+ * {@link Store} which is keeping byte arrays in append-only log file. File is memory-mapped so writing is just copying of bytes
+ * and it is not rewriting whole file on each write like stores based on SharedPreferences.
+ * Index of offsets of actual records by keys is kept in memory and it is restored by replaying of log when store is opening.
+ * Each record has checksum so partially written records (e.g. if process have been killed during writing) are dropped on replaying.
+ * Storing of null value is appending record that is removing key.
+ * Batch operations are appending batch of records with one checksum so batch is either replayed fully or dropped.
+ * When size of outdated records exceeds threshold and size of actual records then log is compacted in background:
+ * actual records are copied to new file which is replacing log file.
+ * Store is not depending on Android so it could be used on plain JVM.
+ */
+public class MappedLogStore implements AtomicBatchStore<String, byte[]>, Closeable {
+
+    public static final long DEFAULT_COMPACTION_THRESHOLD_BYTES = 1024 * 1024;
+
+    private static final int INITIAL_MAPPED_SIZE = 64 * 1024;
+    private static final int RECORD_MAGIC = 0x524C5331;
+    private static final int BATCH_MAGIC = 0x524C5342;
+    // magic, key length, value length, checksum
+    private static final int HEADER_SIZE = 4 * 4;
+    // magic, records size, checksum
+    private static final int BATCH_HEADER_SIZE = 3 * 4;
+    private static final int REMOVAL_VALUE_LENGTH = -1;
+    private static final String COMPACTION_FILE_SUFFIX = ".compacting";
+    private static final Charset KEY_CHARSET = Charset.forName("UTF-8");
+
+    private static int checksum(final int keyLength, final int valueLength, @NonNull final byte[] key, @Nullable final byte[] value) {
+        final CRC32 crc32 = new CRC32();
+        crc32.update(ByteBuffer.allocate(8).putInt(keyLength).putInt(valueLength).array());
+        crc32.update(key);
+        if (value != null) {
+            crc32.update(value);
+        }
+        return (int) crc32.getValue();
+    }
+
+    private static void writeRecord(@NonNull final ByteBuffer target, @NonNull final byte[] key, @Nullable final byte[] value) {
+        final int valueLength = value != null ? value.length : REMOVAL_VALUE_LENGTH;
+        target.putInt(RECORD_MAGIC).putInt(key.length).putInt(valueLength).putInt(checksum(key.length, valueLength, key, value)).put(key);
+        if (value != null) {
+            target.put(value);
+        }
+    }
+
+    // replays records and batches from position till limit into index and returns position after last valid record or batch
+    private static int replay(@NonNull final ByteBuffer buffer, final int fromPosition, final int limit, @NonNull final Map<String, Record> index) {
+        int position = fromPosition;
+        // changes of one record or batch: null record means removal of key
+        final Map<String, Record> changes = new LinkedHashMap<>();
+        while (limit - position >= 4) {
+            final int magic = buffer.getInt(position);
+            final int nextPosition;
+            if (magic == RECORD_MAGIC) {
+                nextPosition = readRecord(buffer, position, limit, changes);
+            } else if (magic == BATCH_MAGIC) {
+                nextPosition = readBatch(buffer, position, limit, changes);
+            } else {
+                break;
+            }
+            if (nextPosition < 0) {
+                break;
+            }
+            for (final Map.Entry<String, Record> change : changes.entrySet()) {
+                if (change.getValue() != null) {
+                    index.put(change.getKey(), change.getValue());
+                } else {
+                    index.remove(change.getKey());
+                }
+            }
+            changes.clear();
+            position = nextPosition;
+        }
+        return position;
+    }
+
+    // reads record at position into changes and returns position after it or -1 if record is not valid
+    private static int readRecord(@NonNull final ByteBuffer buffer, final int position, final int limit, @NonNull final Map<String, Record> changes) {
+        if (limit - position < HEADER_SIZE) {
+            return -1;
+        }
+        final ByteBuffer source = buffer.duplicate();
+        source.position(position);
+        if (source.getInt() != RECORD_MAGIC) {
+            return -1;
+        }
+        final int keyLength = source.getInt();
+        final int valueLength = source.getInt();
+        final int checksum = source.getInt();
+        if (keyLength < 0 || valueLength < REMOVAL_VALUE_LENGTH
+                || (long) HEADER_SIZE + keyLength + Math.max(valueLength, 0) > limit - position) {
+            return -1;
+        }
+        final byte[] key = new byte[keyLength];
+        source.get(key);
+        final byte[] value = valueLength != REMOVAL_VALUE_LENGTH ? new byte[valueLength] : null;
+        if (value != null) {
+            source.get(value);
+        }
+        if (checksum(keyLength, valueLength, key, value) != checksum) {
+            return -1;
+        }
+        final Record record = new Record(position, keyLength, valueLength);
+        changes.put(new String(key, KEY_CHARSET), value != null ? record : null);
+        return position + record.getSize();
+    }
+
+    // reads records of batch at position into changes and returns position after batch or -1 if batch is not valid
+    private static int readBatch(@NonNull final ByteBuffer buffer, final int position, final int limit, @NonNull final Map<String, Record> changes) {
+        if (limit - position < BATCH_HEADER_SIZE) {
+            return -1;
+        }
+        final int recordsSize = buffer.getInt(position + 4);
+        final int checksum = buffer.getInt(position + 8);
+        final int recordsPosition = position + BATCH_HEADER_SIZE;
+        if (recordsSize < 0 || recordsSize > limit - recordsPosition) {
+            return -1;
+        }
+        final byte[] records = new byte[recordsSize];
+        final ByteBuffer source = buffer.duplicate();
+        source.position(recordsPosition);
+        source.get(records);
+        final CRC32 crc32 = new CRC32();
+        crc32.update(records);
+        if ((int) crc32.getValue() != checksum) {
+            return -1;
+        }
+        final int batchEnd = recordsPosition + recordsSize;
+        int recordPosition = recordsPosition;
+        while (recordPosition < batchEnd) {
+            recordPosition = readRecord(buffer, recordPosition, batchEnd, changes);
+            if (recordPosition < 0) {
+                return -1;
+            }
+        }
+        return batchEnd;
+    }
+
+    private static long getRecordsSize(@NonNull final Map<String, Record> index) {
+        long result = 0;
+        for (final Record record : index.values()) {
+            result += record.getSize();
+        }
+        return result;
+    }
+
+    @NonNull
+    private final File file;
+    private final long compactionThresholdBytes;
+    @NonNull
+    private final Object lock = new Object();
+    @NonNull
+    private FileChannel channel;
+    @NonNull
+    private MappedByteBuffer buffer;
+    @NonNull
+    private Map<String, Record> index = new HashMap<>();
+    private int writePosition;
+    private long actualRecordsSize;
+    private boolean compacting;
+    private boolean closed;
+
+    /**
+     * Opens store with {@link #DEFAULT_COMPACTION_THRESHOLD_BYTES}.
+     *
+     * @param file Log file. It will be created if not exists.
+     * @throws IOException Throws if file could not be opened.
+     */
+    public MappedLogStore(@NonNull final File file) throws IOException {
+        this(file, DEFAULT_COMPACTION_THRESHOLD_BYTES);
+    }
+
+    /**
+     * Opens store and replays it's log file to restore index.
+     *
+     * @param file                     Log file. It will be created if not exists;
+     * @param compactionThresholdBytes Minimum size of outdated records to start compaction.
+     * @throws IOException Throws if file could not be opened.
+     */
+    public MappedLogStore(@NonNull final File file, final long compactionThresholdBytes) throws IOException {
+        this.file = file;
+        this.compactionThresholdBytes = compactionThresholdBytes;
+        // compaction file is renamed to log file at the end of compaction so if it exists then compaction have not been finished
+        final File compactionFile = getCompactionFile();
+        if (compactionFile.exists() && !compactionFile.delete()) {
+            throw new IOException("Can't delete unfinished compaction file " + compactionFile);
+        }
+        channel = new RandomAccessFile(file, "rw").getChannel();
+        final long fileSize = channel.size();
+        if (fileSize > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException("Log file is too large: " + fileSize);
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_MAPPED_SIZE, fileSize));
+        writePosition = replay(buffer, 0, (int) fileSize, index);
+        actualRecordsSize = getRecordsSize(index);
+        if (writePosition < fileSize && (fileSize - writePosition < 4 || buffer.getInt(writePosition) != 0)) {
+            // there is broken record so erasing tail to not resurrect records after it when new records will be written over it
+            final ByteBuffer tail = buffer.duplicate();
+            tail.position(writePosition);
+            while (tail.hasRemaining()) {
+                tail.put((byte) 0);
+            }
+        }
+    }
+
+    @NonNull
+    private File getCompactionFile() {
+        return new File(file.getPath() + COMPACTION_FILE_SUFFIX);
+    }
+
+    @NonNull
+    @Override
+    public Single<Boolean> contains(@NonNull final String key) {
+        return Single.fromCallable(() -> {
+            synchronized (lock) {
+                checkNotClosed();
+                return index.containsKey(key);
+            }
+        });
+    }
+
+    @NonNull
+    @Override
+    public Completable storeObject(@NonNull final Type storeObjectType, @NonNull final String key, @Nullable final byte[] storeObject) {
+        return Completable.fromCallable(() -> {
+            final byte[] keyBytes = key.getBytes(KEY_CHARSET);
+            final boolean shouldCompact;
+            synchronized (lock) {
+                checkNotClosed();
+                if (storeObject == null && !index.containsKey(key)) {
+                    return null;
+                }
+                final Record record = new Record(writePosition, keyBytes.length, storeObject != null ? storeObject.length : REMOVAL_VALUE_LENGTH);
+                ensureCapacity(record.getSize());
+                final ByteBuffer target = buffer.duplicate();
+                target.position(writePosition);
+                writeRecord(target, keyBytes, storeObject);
+                writePosition += record.getSize();
+                putToIndex(key, record);
+                shouldCompact = shouldCompact();
+            }
+            if (shouldCompact) {
+                startCompaction();
+            }
+            return null;
+        });
+    }
+
+    @NonNull
+    @Override
+    public Completable storeObjects(@NonNull final Type storeObjectType, @NonNull final Map<String, byte[]> storeObjects) {
+        return storeObjects(Collections.singletonMap(storeObjectType, storeObjects));
+    }
+
+    @NonNull
+    @Override
+    public Completable storeObjects(@NonNull final Map<Type, Map<String, byte[]>> storeObjectsByTypes) {
+        return Completable.fromCallable(() -> {
+            // types are not stored so objects of same key but different types are overriding each other
+            final Map<String, byte[]> storeObjects = new LinkedHashMap<>();
+            for (final Map<String, byte[]> typeStoreObjects : storeObjectsByTypes.values()) {
+                storeObjects.putAll(typeStoreObjects);
+            }
+            if (storeObjects.isEmpty()) {
+                return null;
+            }
+            final List<byte[]> keysBytes = new ArrayList<>(storeObjects.size());
+            long recordsSize = 0;
+            for (final Map.Entry<String, byte[]> entry : storeObjects.entrySet()) {
+                final byte[] keyBytes = entry.getKey().getBytes(KEY_CHARSET);
+                keysBytes.add(keyBytes);
+                recordsSize += HEADER_SIZE + keyBytes.length + (entry.getValue() != null ? entry.getValue().length : 0);
+            }
+            if (recordsSize > Integer.MAX_VALUE - BATCH_HEADER_SIZE) {
+                throw new IOException("Batch is too large: " + recordsSize);
+            }
+            final ByteBuffer records = ByteBuffer.allocate((int) recordsSize);
+            int keyIndex = 0;
+            for (final byte[] storeObject : storeObjects.values()) {
+                writeRecord(records, keysBytes.get(keyIndex++), storeObject);
+            }
+            final CRC32 crc32 = new CRC32();
+            crc32.update(records.array());
+            final boolean shouldCompact;
+            synchronized (lock) {
+                checkNotClosed();
+                ensureCapacity(BATCH_HEADER_SIZE + records.capacity());
+                final ByteBuffer target = buffer.duplicate();
+                target.position(writePosition);
+                target.putInt(BATCH_MAGIC).putInt(records.capacity()).putInt((int) crc32.getValue()).put(records.array());
+                int recordPosition = writePosition + BATCH_HEADER_SIZE;
+                keyIndex = 0;
+                for (final Map.Entry<String, byte[]> entry : storeObjects.entrySet()) {
+                    final int valueLength = entry.getValue() != null ? entry.getValue().length : REMOVAL_VALUE_LENGTH;
+                    final Record record = new Record(recordPosition, keysBytes.get(keyIndex++).length, valueLength);
+                    recordPosition += record.getSize();
+                    putToIndex(entry.getKey(), record);
+                }
+                writePosition = recordPosition;
+                shouldCompact = shouldCompact();
+            }
+            if (shouldCompact) {
+                startCompaction();
+            }
+            return null;
+        });
+    }
+
+    private void putToIndex(@NonNull final String key, @NonNull final Record record) {
+        final Record oldRecord = record.valueLength != REMOVAL_VALUE_LENGTH ? index.put(key, record) : index.remove(key);
+        actualRecordsSize += (record.valueLength != REMOVAL_VALUE_LENGTH ? record.getSize() : 0) - (oldRecord != null ? oldRecord.getSize() : 0);
+    }
+
+    private boolean shouldCompact() {
+        final long outdatedRecordsSize = writePosition - actualRecordsSize;
+        return !compacting && outdatedRecordsSize >= compactionThresholdBytes && outdatedRecordsSize > actualRecordsSize;
+    }
+
+    private void startCompaction() {
+        compact().subscribeOn(Schedulers.io())
+                .subscribe(Actions.empty(), throwable -> BaseStorable.STORABLE_LC_GROUP.w(throwable, "Compaction of %s failed", file));
+    }
+
+    @NonNull
+    @Override
+    public Single<Optional<byte[]>> loadObject(@NonNull final Type storeObjectType, @NonNull final String key) {
+        return Single.fromCallable(() -> {
+            synchronized (lock) {
+                checkNotClosed();
+                return readValue(key);
+            }
+        });
+    }
+
+    @NonNull
+    @Override
+    public Single<Map<String, Optional<byte[]>>> loadObjects(@NonNull final Type storeObjectType, @NonNull final Collection<String> keys) {
+        return Single.fromCallable(() -> {
+            final Map<String, Optional<byte[]>> result = new HashMap<>();
+            synchronized (lock) {
+                checkNotClosed();
+                for (final String key : keys) {
+                    result.put(key, readValue(key));
+                }
+            }
+            return result;
+        });
+    }
+
+    @NonNull
+    private Optional<byte[]> readValue(@NonNull final String key) {
+        final Record record = index.get(key);
+        if (record == null) {
+            return new Optional<>(null);
+        }
+        final ByteBuffer source = buffer.duplicate();
+        source.position(record.position + HEADER_SIZE + record.keyLength);
+        final byte[] result = new byte[record.valueLength];
+        source.get(result);
+        return new Optional<>(result);
+    }
+
+    /**
+     * Returns size of log in bytes including outdated records.
+     *
+     * @return Size of log.
+     */
+    public long getLogSize() {
+        synchronized (lock) {
+            return writePosition;
+        }
+    }
+
+    /**
+     * Returns size of actual records in bytes.
+     *
+     * @return Size of actual records.
+     */
+    public long getActualRecordsSize() {
+        synchronized (lock) {
+            return actualRecordsSize;
+        }
+    }
+
+    /**
+     * Returns {@link Completable} which is copying actual records to new log file and replacing current log file with it.
+     * Store is available for reading and writing during copying.
+     * Usually there is no need to call it as compaction starts automatically.
+     *
+     * @return {@link Completable} of compaction.
+     */
+    @NonNull
+    public Completable compact() {
+        return Completable.fromCallable(() -> {
+            final ByteBuffer sourceBuffer;
+            final Map<String, Record> sourceIndex;
+            final int sourcePosition;
+            synchronized (lock) {
+                checkNotClosed();
+                if (compacting) {
+                    return null;
+                }
+                compacting = true;
+                sourceBuffer = buffer.duplicate();
+                sourceIndex = new HashMap<>(index);
+                sourcePosition = writePosition;
+            }
+            try {
+                compact(sourceBuffer, sourceIndex, sourcePosition);
+            } finally {
+                synchronized (lock) {
+                    compacting = false;
+                }
+            }
+            return null;
+        });
+    }
+
+    private void compact(@NonNull final ByteBuffer sourceBuffer, @NonNull final Map<String, Record> sourceIndex, final int sourcePosition)
+            throws IOException {
+        final File compactionFile = getCompactionFile();
+        final FileChannel compactionChannel = new RandomAccessFile(compactionFile, "rw").getChannel();
+        try {
+            compactionChannel.truncate(0);
+            // records are immutable so they could be copied without lock
+            final Map<String, Record> compactedIndex = new HashMap<>();
+            for (final Map.Entry<String, Record> entry : sourceIndex.entrySet()) {
+                final Record record = entry.getValue();
+                compactedIndex.put(entry.getKey(), new Record((int) compactionChannel.position(), record.keyLength, record.valueLength));
+                writeFully(compactionChannel, sourceBuffer, record.position, record.getSize());
+            }
+            synchronized (lock) {
+                checkNotClosed();
+                // copying records that have been written during compaction
+                final int compactedPosition = (int) compactionChannel.position();
+                writeFully(compactionChannel, buffer.duplicate(), sourcePosition, writePosition - sourcePosition);
+                compactionChannel.force(true);
+                compactionChannel.close();
+                if (!compactionFile.renameTo(file)) {
+                    throw new IOException("Can't rename " + compactionFile + " to " + file);
+                }
+                final FileChannel newChannel = new RandomAccessFile(file, "rw").getChannel();
+                final long newFileSize = newChannel.size();
+                final MappedByteBuffer newBuffer = newChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                        Math.max(INITIAL_MAPPED_SIZE, Math.min(Integer.MAX_VALUE, newFileSize * 2)));
+                channel.close();
+                channel = newChannel;
+                buffer = newBuffer;
+                writePosition = replay(buffer, compactedPosition, (int) newFileSize, compactedIndex);
+                index = compactedIndex;
+                actualRecordsSize = getRecordsSize(index);
+            }
+        } finally {
+            compactionChannel.close();
+        }
+    }
+
+    private void writeFully(@NonNull final FileChannel target, @NonNull final ByteBuffer source, final int position, final int length)
+            throws IOException {
+        source.limit(position + length);
+        source.position(position);
+        while (source.hasRemaining()) {
+            target.write(source);
+        }
+        source.limit(source.capacity());
+    }
+
+    private void ensureCapacity(final int recordSize) throws IOException {
+        final long requiredSize = (long) writePosition + recordSize;
+        if (requiredSize <= buffer.capacity()) {
+            return;
+        }
+        if (requiredSize > Integer.MAX_VALUE) {
+            throw new IOException("Log file is too large to store record of size " + recordSize);
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(Integer.MAX_VALUE, Math.max(requiredSize, buffer.capacity() * 2L)));
+    }
+
+    private void checkNotClosed() throws IOException {
+        if (closed) {
+            throw new IOException("Store is closed");
+        }
+    }
+
+    /**
+     * Closes log file. Store could not be used after that.
+     *
+     * @throws IOException Throws if file could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            buffer.force();
+            channel.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MappedLogStore(" + file + ")";
+    }
+
+    private static class Record {
+
+        private final int position;
+        private final int keyLength;
+        private final int valueLength;
+
+        public Record(final int position, final int keyLength, final int valueLength) {
+            this.position = position;
+            this.keyLength = keyLength;
+            this.valueLength = valueLength;
+        }
+
+        public int getSize() {
+            return HEADER_SIZE + keyLength + Math.max(valueLength, 0);
+        }
+
+    }
+
+}
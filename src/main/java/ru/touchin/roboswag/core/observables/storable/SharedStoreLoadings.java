@@ -0,0 +1,143 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.storable;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+
+import ru.touchin.roboswag.core.utils.ObjectUtils;
+import ru.touchin.roboswag.core.utils.Optional;
+import rx.Observable;
+import rx.Single;
+
+/**
+ * Utility class which is sharing loadings of objects from {@link Store} between all storables (single-flight).
+ * If object is loading from store by same key then other storables are waiting for result of this loading instead of starting new one.
+ * Result of loading is not kept after loading finished so next loadings are accessing store.
+ */
+final class SharedStoreLoadings {
+
+    // guarded by itself
+    private static final Map<LoadingKey, Observable<?>> LOADINGS = new HashMap<>();
+
+    /**
+     * Returns {@link Single} which is loading object from store or joining to loading of same object which is in progress.
+     *
+     * @param store           Store to load object from;
+     * @param storeObjectType Type of object;
+     * @param key             Key of object;
+     * @param <TKey>          Type of key;
+     * @param <TStoreObject>  Type of object;
+     * @return {@link Single} of loading.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    //unchecked: it's OK as loadings are stored by store, type and key
+    public static <TKey, TStoreObject> Single<Optional<TStoreObject>> load(@NonNull final Store<TKey, TStoreObject> store,
+                                                                           @NonNull final Type storeObjectType,
+                                                                           @NonNull final TKey key) {
+        return Single.defer(() -> {
+            final LoadingKey loadingKey = new LoadingKey(store, storeObjectType, key);
+            synchronized (LOADINGS) {
+                Observable<Optional<TStoreObject>> loading = (Observable<Optional<TStoreObject>>) LOADINGS.get(loadingKey);
+                if (loading == null) {
+                    final LoadingHolder holder = new LoadingHolder();
+                    loading = store.loadObject(storeObjectType, key)
+                            .toObservable()
+                            // called on finish of loading or when nobody is waiting for it anymore
+                            .doOnUnsubscribe(() -> remove(loadingKey, holder.loading))
+                            .replay(1)
+                            .refCount();
+                    holder.loading = loading;
+                    LOADINGS.put(loadingKey, loading);
+                }
+                return loading.toSingle();
+            }
+        });
+    }
+
+    /**
+     * Forgets loading of object which is in progress so next loadings will access store.
+     * Should be called before storing of object as loading in progress could return old object.
+     *
+     * @param store           Store of object;
+     * @param storeObjectType Type of object;
+     * @param key             Key of object.
+     */
+    public static void forget(@NonNull final Store<?, ?> store, @NonNull final Type storeObjectType, @NonNull final Object key) {
+        synchronized (LOADINGS) {
+            LOADINGS.remove(new LoadingKey(store, storeObjectType, key));
+        }
+    }
+
+    private static void remove(@NonNull final LoadingKey loadingKey, @Nullable final Observable<?> loading) {
+        synchronized (LOADINGS) {
+            if (LOADINGS.get(loadingKey) == loading) {
+                LOADINGS.remove(loadingKey);
+            }
+        }
+    }
+
+    private SharedStoreLoadings() {
+    }
+
+    private static class LoadingHolder {
+
+        @Nullable
+        private Observable<?> loading;
+
+    }
+
+    private static class LoadingKey {
+
+        @NonNull
+        private final Store<?, ?> store;
+        @NonNull
+        private final Type storeObjectType;
+        @NonNull
+        private final Object key;
+
+        public LoadingKey(@NonNull final Store<?, ?> store, @NonNull final Type storeObjectType, @NonNull final Object key) {
+            this.store = store;
+            this.storeObjectType = storeObjectType;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(@Nullable final Object object) {
+            // stores are compared by reference as they could have no equals
+            return object instanceof LoadingKey
+                    && ((LoadingKey) object).store == store
+                    && ObjectUtils.equals(((LoadingKey) object).storeObjectType, storeObjectType)
+                    && ObjectUtils.equals(((LoadingKey) object).key, key);
+        }
+
+        @Override
+        public int hashCode() {
+            return ObjectUtils.hashCode(System.identityHashCode(store), storeObjectType, key);
+        }
+
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package ru.touchin.roboswag.core.observables.storable;
+
+import android.support.annotation.NonNull;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ru.touchin.roboswag.core.log.Lc;
+import ru.touchin.roboswag.core.utils.Optional;
+import rx.Completable;
+
+/**
+ * Group of storables of same {@link Store} which values could be loaded by one batch call of store (see {@link BatchStore}).
+ * Loaded values are used by initial loading of each storable so storables won't access store one by one.
+ * It is useful to warm up a lot of storables at application start.
+ * Storables with {@link Migration} are not preloaded as their values should be loaded after migration.
+ *
+ * @param <TKey>         Type of keys of storables;
+ * @param <TStoreObject> Type of store objects.
+ */
+public class StorableGroup<TKey, TStoreObject> {
+
+    @NonNull
+    private final Store<TKey, TStoreObject> store;
+    @NonNull
+    private final List<BaseStorable<TKey, ?, TStoreObject, ?>> storables = new ArrayList<>();
+
+    public StorableGroup(@NonNull final Store<TKey, TStoreObject> store) {
+        this.store = store;
+    }
+
+    /**
+     * Adds storable to group. Storable should use same store as group.
+     *
+     * @param storable Storable to add;
+     * @return This group to add other storables.
+     */
+    @NonNull
+    public StorableGroup<TKey, TStoreObject> add(@NonNull final BaseStorable<TKey, ?, TStoreObject, ?> storable) {
+        if (storable.getStore() != store) {
+            Lc.assertion("Storable of key '" + storable.getKey() + "' is using other store");
+            return this;
+        }
+        synchronized (storables) {
+            storables.add(storable);
+        }
+        return this;
+    }
+
+    /**
+     * Loads values of all storables of group by batch loading (one call per type of store objects).
+     * Loaded values are passed to storables and will be emitted on their first loading
+     * if nothing have been written to same keys of store by storables since start of loading.
+     *
+     * @return {@link Completable} of loading.
+     */
+    @NonNull
+    public Completable load() {
+        return Completable.defer(this::createLoading);
+    }
+
+    @NonNull
+    private Completable createLoading() {
+        final Map<Type, Map<TKey, List<BaseStorable<TKey, ?, TStoreObject, ?>>>> storablesByTypes = new LinkedHashMap<>();
+        // values written after start of loading are newer than loaded ones
+        final Map<BaseStorable<TKey, ?, TStoreObject, ?>, Long> writeNumbers = new HashMap<>();
+        synchronized (storables) {
+            for (final BaseStorable<TKey, ?, TStoreObject, ?> storable : storables) {
+                if (!storable.isPreloadingSupported()) {
+                    continue;
+                }
+                writeNumbers.put(storable, storable.startPreloading());
+                Map<TKey, List<BaseStorable<TKey, ?, TStoreObject, ?>>> storablesByKeys = storablesByTypes.get(storable.getStoreObjectType());
+                if (storablesByKeys == null) {
+                    storablesByKeys = new HashMap<>();
+                    storablesByTypes.put(storable.getStoreObjectType(), storablesByKeys);
+                }
+                List<BaseStorable<TKey, ?, TStoreObject, ?>> sameKeyStorables = storablesByKeys.get(storable.getKey());
+                if (sameKeyStorables == null) {
+                    sameKeyStorables = new ArrayList<>(1);
+                    storablesByKeys.put(storable.getKey(), sameKeyStorables);
+                }
+                sameKeyStorables.add(storable);
+            }
+        }
+        final List<Completable> loadings = new ArrayList<>(storablesByTypes.size());
+        for (final Map.Entry<Type, Map<TKey, List<BaseStorable<TKey, ?, TStoreObject, ?>>>> typeEntry : storablesByTypes.entrySet()) {
+            final Map<TKey, List<BaseStorable<TKey, ?, TStoreObject, ?>>> storablesByKeys = typeEntry.getValue();
+            loadings.add(BatchStores.loadObjects(store, typeEntry.getKey(), storablesByKeys.keySet())
+                    .doOnSuccess(storeObjects -> {
+                        for (final Map.Entry<TKey, Optional<TStoreObject>> storeObjectEntry : storeObjects.entrySet()) {
+                            final List<BaseStorable<TKey, ?, TStoreObject, ?>> sameKeyStorables = storablesByKeys.get(storeObjectEntry.getKey());
+                            if (sameKeyStorables == null) {
+                                continue;
+                            }
+                            for (final BaseStorable<TKey, ?, TStoreObject, ?> storable : sameKeyStorables) {
+                                storable.preloadStoreValue(storeObjectEntry.getValue(), writeNumbers.get(storable));
+                            }
+                        }
+                    })
+                    .toCompletable());
+        }
+        return Completable.merge(loadings);
+    }
+
+}
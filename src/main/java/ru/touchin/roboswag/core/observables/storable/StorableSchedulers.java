@@ -0,0 +1,85 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.storable;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import ru.touchin.roboswag.core.log.Lc;
+import ru.touchin.roboswag.core.observables.SerialLanesPool;
+import rx.Scheduler;
+
+/**
+ * Process-wide schedulers of storables which are not having specific store scheduler.
+ * Storables are striped by hash of key onto small fixed count of serial lanes so loading and storing of same key
+ * are executing in order while count of threads is not depending on count of storables.
+ * Idle threads are stopping so they are not wasting memory.
+ */
+public final class StorableSchedulers {
+
+    public static final int DEFAULT_LANES_COUNT = 4;
+
+    private static int lanesCount = DEFAULT_LANES_COUNT;
+    @Nullable
+    private static Scheduler[] laneSchedulers;
+
+    /**
+     * Sets count of lanes (and threads) to execute work of storables. Should be called before creation of any storable.
+     *
+     * @param lanesCount Count of lanes. Should be at least 1.
+     */
+    public static void setLanesCount(final int lanesCount) {
+        synchronized (StorableSchedulers.class) {
+            if (lanesCount < 1) {
+                Lc.assertion("Lanes count should be positive but it is " + lanesCount);
+                return;
+            }
+            if (laneSchedulers != null) {
+                Lc.assertion("Lanes count should be set before creation of storables");
+                return;
+            }
+            StorableSchedulers.lanesCount = lanesCount;
+        }
+    }
+
+    /**
+     * Returns scheduler of lane for specific key. Same keys are always getting same lane.
+     *
+     * @param key Key of storable;
+     * @return Scheduler of lane.
+     */
+    @NonNull
+    public static Scheduler getScheduler(@NonNull final Object key) {
+        synchronized (StorableSchedulers.class) {
+            if (laneSchedulers == null) {
+                final SerialLanesPool lanesPool = new SerialLanesPool("Storable", lanesCount);
+                laneSchedulers = new Scheduler[lanesCount];
+                for (int i = 0; i < lanesCount; i++) {
+                    laneSchedulers[i] = lanesPool.acquireLane().getScheduler();
+                }
+            }
+            return laneSchedulers[(key.hashCode() & Integer.MAX_VALUE) % laneSchedulers.length];
+        }
+    }
+
+    private StorableSchedulers() {
+    }
+
+}
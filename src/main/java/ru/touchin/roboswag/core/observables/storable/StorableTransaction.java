@@ -0,0 +1,213 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.storable;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ru.touchin.roboswag.core.log.Lc;
+import ru.touchin.roboswag.core.utils.Optional;
+import rx.Completable;
+import rx.Scheduler;
+import rx.subjects.BehaviorSubject;
+
+/**
+ * Transaction to write values of many storables of same {@link Store} at once (e.g. to clear user's data on logout).
+ * Values are staged by {@link #set(BaseStorable, Object)} and written by {@link #commit()}
+ * with one batch call of store for values of all types if store is {@link AtomicBatchStore}
+ * (e.g. {@link MappedLogStore} or {@link CachingStore} of it),
+ * so there won't be inconsistent state if process have been killed or storing have failed during commit.
+ * Other stores are called once per type of store objects (see {@link BatchStores#storeObjects(Store, Map)}) so commit is not atomic.
+ * Commit is waiting for sets, updates and flushes of storables started before it and holds them till the end
+ * so values of storables are written and emitted in same order as by these operations.
+ * Observers of storables are notified about new values only after all values have been stored.
+ * Write-behind mode of storables is ignored: values are stored on commit and values that are not stored yet are dropped
+ * if commit succeeded or are stored later if it failed.
+ *
+ * @param <TKey>         Type of keys of storables;
+ * @param <TStoreObject> Type of store objects.
+ */
+public class StorableTransaction<TKey, TStoreObject> {
+
+    // holds of operations queues of storables are taken under this lock so transactions are holding queues in same order
+    @NonNull
+    private static final Object HOLDS_LOCK = new Object();
+
+    @NonNull
+    private final Store<TKey, TStoreObject> store;
+    @NonNull
+    private final Scheduler scheduler;
+    // guarded by itself
+    @NonNull
+    private final Map<BaseStorable<TKey, ?, TStoreObject, ?>, StagedWrite<?>> stagedWrites = new LinkedHashMap<>();
+
+    public StorableTransaction(@NonNull final Store<TKey, TStoreObject> store) {
+        this.store = store;
+        this.scheduler = StorableSchedulers.getScheduler(store);
+    }
+
+    /**
+     * Stages value of storable to write it on commit. Storable should use same store as transaction.
+     * If value of storable is already staged then it will be replaced.
+     *
+     * @param storable  Storable to set value of;
+     * @param value     Value to set;
+     * @param <TObject> Type of value;
+     * @return This transaction to stage other values.
+     */
+    @NonNull
+    public <TObject> StorableTransaction<TKey, TStoreObject> set(@NonNull final BaseStorable<TKey, TObject, TStoreObject, ?> storable,
+                                                                  @Nullable final TObject value) {
+        if (storable.getStore() != store) {
+            Lc.assertion("Storable of key '" + storable.getKey() + "' is using other store");
+            return this;
+        }
+        synchronized (stagedWrites) {
+            stagedWrites.put(storable, new StagedWrite<>(storable, value));
+        }
+        return this;
+    }
+
+    /**
+     * Returns count of staged values.
+     *
+     * @return Count of values to write on commit.
+     */
+    public int getStagedValuesCount() {
+        synchronized (stagedWrites) {
+            return stagedWrites.size();
+        }
+    }
+
+    /**
+     * Returns {@link Completable} which is writing all staged values to store and then notifies observers of storables.
+     * Staged values are taken, converted and queues of storables are held right on subscription
+     * so transaction could be used again after that. Values are stored on scheduler of store.
+     *
+     * @return {@link Completable} of commit.
+     */
+    @NonNull
+    public Completable commit() {
+        return Completable
+                .defer(() -> {
+                    final List<StagedWrite<?>> writes;
+                    synchronized (stagedWrites) {
+                        writes = new ArrayList<>(stagedWrites.values());
+                        stagedWrites.clear();
+                    }
+                    final Map<Type, Map<TKey, TStoreObject>> storeObjectsByTypes = new LinkedHashMap<>();
+                    for (final StagedWrite<?> write : writes) {
+                        try {
+                            write.convert();
+                        } catch (final Converter.ConversionException exception) {
+                            BaseStorable.STORABLE_LC_GROUP.w(exception, "Exception while trying to convert value of '%s' in transaction",
+                                    write.storable.getKey());
+                            return Completable.error(exception);
+                        }
+                        Map<TKey, TStoreObject> storeObjects = storeObjectsByTypes.get(write.storable.getStoreObjectType());
+                        if (storeObjects == null) {
+                            storeObjects = new HashMap<>();
+                            storeObjectsByTypes.put(write.storable.getStoreObjectType(), storeObjects);
+                        }
+                        if (storeObjects.containsKey(write.storable.getKey())) {
+                            BaseStorable.STORABLE_LC_GROUP.w("Value of '%s' is set by different storables in transaction", write.storable.getKey());
+                        }
+                        storeObjects.put(write.storable.getKey(), write.storeValue);
+                    }
+                    final BehaviorSubject<Boolean> releaseEvent = BehaviorSubject.create();
+                    final Completable release = releaseEvent.first().toCompletable();
+                    final List<Completable> holds = new ArrayList<>(writes.size());
+                    // holds are taken right on subscription to keep order with operations of storables started after it
+                    synchronized (HOLDS_LOCK) {
+                        for (final StagedWrite<?> write : writes) {
+                            holds.add(write.storable.holdOperations(release));
+                        }
+                    }
+                    final List<Completable> notifications = new ArrayList<>(writes.size());
+                    for (final StagedWrite<?> write : writes) {
+                        notifications.add(Completable.fromAction(write::finish).subscribeOn(write.storable.getScheduler()));
+                    }
+                    return Completable.merge(holds)
+                            .observeOn(scheduler)
+                            .andThen(Completable.defer(() -> {
+                                for (final StagedWrite<?> write : writes) {
+                                    write.start();
+                                }
+                                return BatchStores.storeObjects(store, storeObjectsByTypes);
+                            }))
+                            .doOnError(throwable -> {
+                                BaseStorable.STORABLE_LC_GROUP.w(throwable,
+                                        "Exception while trying to commit transaction of %d values to store %s", writes.size(), store);
+                                for (final StagedWrite<?> write : writes) {
+                                    write.fail();
+                                }
+                            })
+                            .andThen(Completable.merge(notifications))
+                            .doOnCompleted(() -> BaseStorable.STORABLE_LC_GROUP.i("Transaction of %d values committed to store %s",
+                                    writes.size(), store))
+                            .doAfterTerminate(() -> releaseEvent.onNext(true))
+                            .doOnUnsubscribe(() -> releaseEvent.onNext(true));
+                });
+    }
+
+    private class StagedWrite<TObject> {
+
+        @NonNull
+        private final BaseStorable<TKey, TObject, TStoreObject, ?> storable;
+        @Nullable
+        private final TObject value;
+        @Nullable
+        private TStoreObject storeValue;
+        @Nullable
+        private Optional<TStoreObject> pendingValue;
+        private long writeNumber;
+
+        public StagedWrite(@NonNull final BaseStorable<TKey, TObject, TStoreObject, ?> storable, @Nullable final TObject value) {
+            this.storable = storable;
+            this.value = value;
+        }
+
+        public void convert() throws Converter.ConversionException {
+            storeValue = storable.toStoreObject(value);
+        }
+
+        public void start() {
+            pendingValue = storable.takePendingWrite();
+            writeNumber = storable.startWrite();
+        }
+
+        public void fail() {
+            storable.restorePendingWrite(pendingValue);
+        }
+
+        public void finish() {
+            storable.finishWrite(storeValue, writeNumber);
+        }
+
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ *  Copyright (c) 2017 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package ru.touchin.roboswag.core.observables.storable;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+
+import ru.touchin.roboswag.core.utils.ObjectUtils;
+
+/**
+ * Compact fingerprint of store value to check if new value is same as previous one without loading it from store.
+ * Small immutable values (boxed primitives, enums and short strings) and copies of short byte arrays are kept so check is exact.
+ * For other values only hash is kept so it could only prove that values are different.
+ */
+final class StoreValueFingerprint {
+
+    private static final int MAX_EXACT_VALUE_LENGTH = 64;
+
+    /**
+     * Creates fingerprint of store value.
+     *
+     * @param storeValue Store value;
+     * @return Fingerprint of value.
+     */
+    @NonNull
+    public static StoreValueFingerprint of(@Nullable final Object storeValue) {
+        if (storeValue == null) {
+            return new StoreValueFingerprint(null, 0, true);
+        }
+        final int hash = hashOf(storeValue);
+        if (storeValue instanceof byte[]) {
+            final byte[] bytes = (byte[]) storeValue;
+            // copying array as it could be changed after storing
+            return bytes.length <= MAX_EXACT_VALUE_LENGTH ? new StoreValueFingerprint(bytes.clone(), hash, true)
+                    : new StoreValueFingerprint(null, hash, false);
+        }
+        if (storeValue instanceof String) {
+            return ((String) storeValue).length() <= MAX_EXACT_VALUE_LENGTH ? new StoreValueFingerprint(storeValue, hash, true)
+                    : new StoreValueFingerprint(null, hash, false);
+        }
+        return isImmutableValue(storeValue) ? new StoreValueFingerprint(storeValue, hash, true)
+                : new StoreValueFingerprint(null, hash, false);
+    }
+
+    // mutable values (e.g. AtomicInteger) could be changed after storing so they could not be kept as is
+    private static boolean isImmutableValue(@NonNull final Object storeValue) {
+        return storeValue instanceof Boolean
+                || storeValue instanceof Character
+                || storeValue instanceof Byte
+                || storeValue instanceof Short
+                || storeValue instanceof Integer
+                || storeValue instanceof Long
+                || storeValue instanceof Float
+                || storeValue instanceof Double
+                || storeValue instanceof Enum;
+    }
+
+    private static int hashOf(@Nullable final Object storeValue) {
+        // same as ObjectUtils.equals() arrays are compared by content
+        return Arrays.deepHashCode(new Object[]{storeValue});
+    }
+
+    @Nullable
+    private final Object storeValue;
+    private final int hash;
+    private final boolean exact;
+
+    private StoreValueFingerprint(@Nullable final Object storeValue, final int hash, final boolean exact) {
+        this.storeValue = storeValue;
+        this.hash = hash;
+        this.exact = exact;
+    }
+
+    /**
+     * Checks if store value is same as value of fingerprint.
+     *
+     * @param storeValue Store value to check;
+     * @return True if values are same, false if they are different and null if it is unknown.
+     */
+    @Nullable
+    public Boolean isSameValue(@Nullable final Object storeValue) {
+        if (exact) {
+            return ObjectUtils.equals(this.storeValue, storeValue);
+        }
+        return hashOf(storeValue) != hash ? Boolean.FALSE : null;
+    }
+
+}
@@ -118,6 +118,34 @@ public class NonNullStorable<TKey, TObject, TStoreObject> extends BaseStorable<T
             return this;
         }
 
+        /**
+         * Sets write-behind mode: values are emitted to observers immediately but stored only after delay
+         * so frequent setting of values (e.g. by slider) is causing only one write to store.
+         * Values that are not stored yet could be stored by {@link BaseStorable#flush()}.
+         *
+         * @param writeDelay Delay of storing. 0 disables write-behind mode;
+         * @param timeUnit   Delay units.
+         * @return Builder that allows to specify other fields.
+         */
+        @NonNull
+        public Builder<TKey, TObject, TStoreObject> setWriteBehind(final long writeDelay, @NonNull final TimeUnit timeUnit) {
+            setWriteBehindInternal(writeDelay, timeUnit);
+            return this;
+        }
+
+        /**
+         * Sets if fingerprint of last value should be kept so {@link BaseStorable#set(Object)} could skip loading of value from store
+         * to check if value changed. It is useful for {@link ObserveStrategy#NO_CACHE} and {@link ObserveStrategy#CACHE_ACTUAL_VALUE}.
+         *
+         * @param lastValueFingerprintEnabled True to keep fingerprint;
+         * @return Builder that allows to specify other fields.
+         */
+        @NonNull
+        public Builder<TKey, TObject, TStoreObject> setLastValueFingerprintEnabled(final boolean lastValueFingerprintEnabled) {
+            setLastValueFingerprintEnabledInternal(lastValueFingerprintEnabled);
+            return this;
+        }
+
         /**
          * Sets specific {@link Migration} to migrate values from specific version to latest version.
          *